@@ -0,0 +1,111 @@
+package com.ipl.graphql.benchmarks;
+
+import com.ipl.graphql.schema.UpstreamClients;
+import com.ipl.graphql.schema.UpstreamOptions;
+import com.ipl.graphql.server.GraphQLProvider;
+import com.sun.net.httpserver.HttpServer;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end GraphQL executions through GraphQLProvider against a local stub upstream, so the measure
+ * covers parsing, validation, fetchers, upstream HTTP calls and response decoding.
+ * The stub answers instantly, the gateway overhead dominates. Without TCP_NODELAY the stub sends headers
+ * and body in two segments and every call waits for a delayed ACK.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class ExecutionBenchmark {
+    private static final int ITEMS = 50;
+
+    /** Data fetchers returning CompletableFuture with enqueued calls, or blocking calls. */
+    @Param({"false", "true"})
+    public boolean async;
+
+    private HttpServer upstream;
+    private ExecutorService upstreamThreads;
+    private UpstreamClients upstreamClients;
+    private GraphQLProvider graphQLProvider;
+
+    @Setup
+    public void setUp() throws IOException {
+        final byte[] items = OpenApiSpecs.items(ITEMS);
+        final byte[] item = OpenApiSpecs.item(1).toString().getBytes();
+        upstream = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        upstream.createContext("/listing/", exchange -> {
+            final byte[] body = exchange.getRequestURI().getPath().matches(".*/items\\d+") ? items : item;
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        upstreamThreads = Executors.newFixedThreadPool(4);
+        upstream.setExecutor(upstreamThreads);
+        upstream.start();
+
+        final UpstreamOptions options = new UpstreamOptions();
+        options.setAsync(async);
+        upstreamClients = new UpstreamClients(options);
+        graphQLProvider = GraphQLProviderBenchmark.provider(upstreamClients);
+        graphQLProvider.registerSpec("ListingService", OpenApiSpecs.spec("Listing", 10,
+                "http://localhost:" + upstream.getAddress().getPort() + "/listing"));
+        // fails fast on a broken setup instead of measuring errors
+        for (ExecutionResult result : new ExecutionResult[]{listAllFields(), listProjected(), fanOut()}) {
+            if (!result.getErrors().isEmpty()) {
+                throw new IllegalStateException(result.getErrors().toString());
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphQLProvider.shutdown();
+        upstreamClients.shutdown();
+        upstream.stop(0);
+        upstreamThreads.shutdown();
+    }
+
+    @Benchmark
+    public ExecutionResult listAllFields() {
+        return graphQLProvider.execute(ExecutionInput.newExecutionInput()
+                .query("{ listingListItems0 { id name color year model } }"));
+    }
+
+    @Benchmark
+    public ExecutionResult listProjected() {
+        return graphQLProvider.execute(ExecutionInput.newExecutionInput()
+                .query("{ listingListItems0 { id name } }"));
+    }
+
+    @Benchmark
+    public ExecutionResult fanOut() {
+        return graphQLProvider.execute(ExecutionInput.newExecutionInput()
+                .query("{ a: listingGetItem0(id: 1) { id name } b: listingGetItem1(id: 2) { id name }"
+                        + " c: listingGetItem2(id: 3) { id name } d: listingListItems3 { id } }"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.ipl.graphql.benchmarks;
+
+import com.ipl.graphql.schema.UpstreamClients;
+import com.ipl.graphql.server.DocumentCache;
+import com.ipl.graphql.server.GraphQLProvider;
+import graphql.execution.instrumentation.Instrumentation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schema builds of GraphQLProvider as the number of registered services grows: loading every service at once,
+ * as when restoring a snapshot, and registering one more service, which rebuilds the whole schema.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphQLProviderBenchmark {
+    private static final int RESOURCES = 10;
+
+    @Param({"1", "10", "50"})
+    public int services;
+
+    private UpstreamClients upstreamClients;
+    private Map<String, String> specs;
+    private String extraSpec;
+    private GraphQLProvider registered;
+
+    @Setup
+    public void setUp() {
+        upstreamClients = new UpstreamClients();
+        specs = new LinkedHashMap<>();
+        for (int i = 0; i < services; i++) {
+            specs.put("Service" + i, OpenApiSpecs.spec("Service" + i, RESOURCES, "http://localhost:8080/service" + i));
+        }
+        extraSpec = OpenApiSpecs.spec("Extra", RESOURCES, "http://localhost:8080/extra");
+        registered = provider(upstreamClients);
+        registered.registerSpecs(specs);
+    }
+
+    @TearDown
+    public void tearDown() {
+        registered.shutdown();
+        upstreamClients.shutdown();
+    }
+
+    @Benchmark
+    public long loadAll() {
+        return provider(upstreamClients).registerSpecs(specs);
+    }
+
+    @Benchmark
+    public long registerOne() {
+        return registered.registerSpec("Extra", extraSpec);
+    }
+
+    /**
+     * Provider of OpenAPI services without executor, conversion pool nor instrumentation
+     * @param upstreamClients
+     * @return
+     */
+    static GraphQLProvider provider(UpstreamClients upstreamClients) {
+        final StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Collections.singletonMap("schema", "openapi")));
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        return new GraphQLProvider(environment, upstreamClients, beanFactory.getBeanProvider(ExecutorService.class),
+                new DocumentCache(100, new SimpleMeterRegistry()), 0, beanFactory.getBeanProvider(Instrumentation.class));
+    }
+}
@@ -0,0 +1,128 @@
+package com.ipl.graphql.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ipl.graphql.schema.InvocationPlan;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Request building of a GET operation with two path and two query parameters: the compiled
+ * InvocationPlan against the per-call request factory it replaced.
+ * Run with -prof gc to compare allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvocationPlanBenchmark {
+    private static final String URL = "http://localhost:8080/makes/{make}/models/{model}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Parameter> parameters;
+    private Map<String, Object> arguments;
+    private InvocationPlan plan;
+
+    @Setup
+    public void setUp() {
+        parameters = Arrays.asList(
+                new Parameter().in("path").name("make").schema(new StringSchema()),
+                new Parameter().in("path").name("model").schema(new StringSchema()._default("x5")),
+                new Parameter().in("query").name("color").schema(new StringSchema()),
+                new Parameter().in("query").name("year").schema(new StringSchema()));
+        arguments = new HashMap<>();
+        arguments.put("make", "bmw");
+        arguments.put("color", Arrays.asList("black", "white"));
+        arguments.put("year", 2020);
+        plan = InvocationPlan.compile(URL, PathItem.HttpMethod.GET, parameters, objectMapper);
+    }
+
+    @Benchmark
+    public Request compiledPlan() {
+        return plan.request(arguments, "trace");
+    }
+
+    @Benchmark
+    public Request perCallFactory() {
+        return legacyRequest(arguments, "trace");
+    }
+
+    /**
+     * Request factory of the data fetchers before invocation plans: regex replacement per path
+     * parameter, default lookup in the operation parameters and a body serialized for every method
+     */
+    private Request legacyRequest(Map<String, Object> arguments, String traceId) {
+        List<String> pathParams = parameters.stream()
+                .filter(parameter -> parameter.getIn().equals("path"))
+                .map(Parameter::getName)
+                .collect(Collectors.toList());
+        List<String> queryParams = parameters.stream()
+                .filter(parameter -> parameter.getIn().equals("query"))
+                .map(Parameter::getName)
+                .collect(Collectors.toList());
+        String urlParams = URL;
+        for (String param : pathParams) {
+            urlParams = urlParams.replaceAll(String.format("\\{%s}", param),
+                    null != arguments.get(param)
+                            ? arguments.get(param).toString()
+                            : Objects.requireNonNull(parameters.stream()
+                            .filter(parameter -> parameter.getName().equals(param))
+                            .findFirst().orElse(null))
+                            .getSchema()
+                            .getDefault().toString());
+        }
+        try {
+            okhttp3.RequestBody.create(MediaType.parse("application/json; charset=utf-8"),
+                    objectMapper.writeValueAsString(arguments.get("input")));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, String> queryParamMap = new HashMap<>();
+        queryParams.stream()
+                .filter(queryParam -> arguments.get(queryParam) != null)
+                .forEach(queryParam -> queryParamMap.put(queryParam, arguments.get(queryParam) instanceof Collection
+                        ? ((Collection<?>) arguments.get(queryParam)).stream().map(String::valueOf).collect(Collectors.joining(","))
+                        : arguments.get(queryParam).toString()));
+        StringBuilder url = new StringBuilder(urlParams);
+        if (!queryParamMap.isEmpty()) {
+            url.append('?');
+            for (Map.Entry<String, String> entry : queryParamMap.entrySet()) {
+                url.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8)).append('=')
+                        .append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8)).append('&');
+            }
+            url.deleteCharAt(url.length() - 1);
+        }
+        return new Request.Builder()
+                .headers(new Headers.Builder().add("TraceId", traceId).build())
+                .url(url.toString())
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.ipl.graphql.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+
+import java.util.Objects;
+
+/**
+ * Generated OpenAPI specs, so benchmarks do not depend on test resources and scale with their parameters.
+ * Every resource has a Dto, a Request, a list and a get operation, and a create operation.
+ */
+final class OpenApiSpecs {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private OpenApiSpecs() {
+    }
+
+    /**
+     * JSON spec of a service
+     * @param prefix prefix of the type names and operation ids, unique per service
+     * @param resources number of resources
+     * @param serverUrl
+     * @return
+     */
+    static String spec(String prefix, int resources, String serverUrl) {
+        final ObjectNode spec = OBJECT_MAPPER.createObjectNode();
+        spec.put("openapi", "3.0.1");
+        spec.putObject("info").put("title", prefix).put("version", "v0");
+        spec.putArray("servers").addObject().put("url", serverUrl);
+        final ObjectNode paths = spec.putObject("paths");
+        final ObjectNode schemas = spec.putObject("components").putObject("schemas");
+        for (int i = 0; i < resources; i++) {
+            final String type = prefix + "Item" + i;
+            final ObjectNode dto = schemas.putObject(type + "Dto").put("type", "object");
+            final ObjectNode properties = dto.putObject("properties");
+            properties.putObject("id").put("type", "integer").put("format", "int32");
+            properties.putObject("name").put("type", "string");
+            properties.putObject("color").put("type", "string");
+            properties.putObject("year").put("type", "integer").put("format", "int32");
+            properties.putObject("model").put("type", "string");
+            schemas.putObject(type + "Request").put("type", "object")
+                    .putObject("properties").putObject("name").put("type", "string");
+
+            final ObjectNode collection = paths.putObject("/items" + i);
+            final ObjectNode list = collection.putObject("get").put("operationId", lower(prefix) + "ListItems" + i);
+            response(list).put("type", "array").putObject("items").put("$ref", "#/components/schemas/" + type + "Dto");
+            final ObjectNode create = collection.putObject("post").put("operationId", lower(prefix) + "CreateItem" + i);
+            create.putObject("requestBody").put("required", true).putObject("content").putObject("application/json")
+                    .putObject("schema").put("$ref", "#/components/schemas/" + type + "Request");
+            response(create).put("$ref", "#/components/schemas/" + type + "Dto");
+
+            final ObjectNode get = paths.putObject("/items" + i + "/{id}").putObject("get")
+                    .put("operationId", lower(prefix) + "GetItem" + i);
+            final ArrayNode parameters = get.putArray("parameters");
+            parameters.addObject().put("name", "id").put("in", "path").put("required", true)
+                    .putObject("schema").put("type", "integer").put("format", "int32");
+            response(get).put("$ref", "#/components/schemas/" + type + "Dto");
+        }
+        return spec.toString();
+    }
+
+    /**
+     * Parsed spec of a service
+     * @param prefix
+     * @param resources
+     * @param serverUrl
+     * @return
+     */
+    static OpenAPI openAPI(String prefix, int resources, String serverUrl) {
+        return Objects.requireNonNull(new OpenAPIV3Parser().readContents(spec(prefix, resources, serverUrl), null, null)
+                .getOpenAPI());
+    }
+
+    /**
+     * JSON body of an item
+     * @param id
+     * @return
+     */
+    static ObjectNode item(int id) {
+        return OBJECT_MAPPER.createObjectNode()
+                .put("id", id)
+                .put("name", "item " + id)
+                .put("color", id % 2 == 0 ? "black" : "white")
+                .put("year", 2000 + id % 20)
+                .put("model", "model " + id % 7);
+    }
+
+    /**
+     * JSON body of a list of items
+     * @param size
+     * @return
+     */
+    static byte[] items(int size) {
+        final ArrayNode items = OBJECT_MAPPER.createArrayNode();
+        for (int i = 0; i < size; i++) {
+            items.add(item(i));
+        }
+        return items.toString().getBytes();
+    }
+
+    private static ObjectNode response(ObjectNode operation) {
+        return operation.putObject("responses").putObject("200").put("description", "OK")
+                .putObject("content").putObject("application/json").putObject("schema");
+    }
+
+    private static String lower(String prefix) {
+        return Character.toLowerCase(prefix.charAt(0)) + prefix.substring(1);
+    }
+}
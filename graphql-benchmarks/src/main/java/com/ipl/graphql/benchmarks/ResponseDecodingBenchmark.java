@@ -0,0 +1,88 @@
+package com.ipl.graphql.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ipl.graphql.schema.FieldProjection;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decoding of an upstream list response inside the fetchers: the full tree the fetchers used to build,
+ * the streaming read of every property, and the streaming read of the two selected properties.
+ * Run with -prof gc to compare allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseDecodingBenchmark {
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] body;
+    private FieldProjection projection;
+
+    @Setup
+    public void setUp() {
+        body = OpenApiSpecs.items(items);
+        projection = projection("{ items { id name } }");
+    }
+
+    @Benchmark
+    public Object fullTree() throws IOException {
+        return objectMapper.readValue(new ByteArrayInputStream(body), new TypeReference<Object>() {
+        });
+    }
+
+    @Benchmark
+    public Object allFields() throws IOException {
+        return FieldProjection.ALL.read(objectMapper, new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public Object projected() throws IOException {
+        return projection.read(objectMapper, new ByteArrayInputStream(body));
+    }
+
+    /**
+     * Projection of the selection of a query, as a fetcher gets it
+     */
+    private static FieldProjection projection(String query) {
+        final AtomicReference<FieldProjection> projection = new AtomicReference<>();
+        final GraphQL graphQL = GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(
+                "type Query { items: [Item] } type Item { id: Int name: String color: String year: Int model: String }"),
+                RuntimeWiring.newRuntimeWiring().type("Query", type -> type.dataFetcher("items", env -> {
+                    projection.set(FieldProjection.of(env.getSelectionSet()));
+                    return Collections.emptyList();
+                })).build())).build();
+        final ExecutionResult result = graphQL.execute(query);
+        if (!result.getErrors().isEmpty()) {
+            throw new IllegalStateException(result.getErrors().toString());
+        }
+        return projection.get();
+    }
+}
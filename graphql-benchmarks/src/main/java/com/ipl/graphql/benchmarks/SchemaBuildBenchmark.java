@@ -0,0 +1,58 @@
+package com.ipl.graphql.benchmarks;
+
+import com.ipl.graphql.schema.OpenApiGraphQLSchemaBuilder;
+import com.ipl.graphql.schema.UpstreamClients;
+import graphql.schema.GraphQLSchema;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of an OpenAPI spec into a GraphQL schema, openapi() then build(), on a small and a large spec.
+ * The spec is parsed once, only the conversion is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchemaBuildBenchmark {
+
+    /** Resources of the spec, each one is 2 queries, 1 mutation and 2 types. */
+    @Param({"10", "200"})
+    public int resources;
+
+    private UpstreamClients upstreamClients;
+    private OpenAPI openAPI;
+
+    @Setup
+    public void setUp() {
+        upstreamClients = new UpstreamClients();
+        openAPI = OpenApiSpecs.openAPI("Listing", resources, "http://localhost:8080/listing");
+    }
+
+    @TearDown
+    public void tearDown() {
+        upstreamClients.shutdown();
+    }
+
+    @Benchmark
+    public GraphQLSchema openapiBuild() {
+        return new OpenApiGraphQLSchemaBuilder(upstreamClients)
+                .openapi("ListingService", openAPI)
+                .build();
+    }
+}
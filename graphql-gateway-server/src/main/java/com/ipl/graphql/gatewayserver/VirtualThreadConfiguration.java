@@ -0,0 +1,77 @@
+package com.ipl.graphql.gatewayserver;
+
+import com.ipl.graphql.server.GraphQLProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs request handling and GraphQL field resolution on virtual threads.
+ * Enabled with graphql.execution.virtual-threads, virtual threads require a Java 21+ runtime.
+ * On older runtimes nothing is registered, Tomcat keeps its bounded pool and fields resolve on the request thread.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "graphql.execution", name = "virtual-threads", havingValue = "true")
+@Conditional(VirtualThreadConfiguration.OnVirtualThreads.class)
+public class VirtualThreadConfiguration {
+    /** Name of the executor running the Tomcat request threads. */
+    public static final String HTTP_EXECUTOR = "httpExecutor";
+
+    @Bean(name = GraphQLProvider.EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService graphqlExecutor() {
+        return newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean(name = HTTP_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService httpExecutor() {
+        return newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(
+            @Qualifier(HTTP_EXECUTOR) ExecutorService httpExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(httpExecutor);
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively as the project targets Java 11
+     * @return
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not supported by Java " + System.getProperty("java.version"), e);
+        }
+    }
+
+    /**
+     * Matches when the runtime has virtual threads
+     */
+    static class OnVirtualThreads implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            try {
+                Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return true;
+            } catch (NoSuchMethodException e) {
+                if (context.getEnvironment().getProperty("graphql.execution.virtual-threads", Boolean.class, false)) {
+                    log.warn("graphql.execution.virtual-threads is ignored, virtual threads are not supported by Java {}",
+                            System.getProperty("java.version"));
+                }
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.ipl.graphql.gatewayserver;
+
+import com.ipl.graphql.server.GraphQLProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class VirtualThreadConfigurationTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadConfiguration.class);
+
+    @Test
+    void executors_have_not_to_be_registered_when_disabled() {
+        contextRunner.withPropertyValues("graphql.execution.virtual-threads=false")
+                .run(context -> assertEquals(0, context.getBeansOfType(ExecutorService.class).size()));
+    }
+
+    @Test
+    void executors_have_to_be_registered_only_on_runtimes_with_virtual_threads() {
+        final boolean supported = Runtime.version().feature() >= 21;
+        contextRunner.withPropertyValues("graphql.execution.virtual-threads=true").run(context -> {
+            assertEquals(supported, context.containsBean(GraphQLProvider.EXECUTOR));
+            assertEquals(supported, context.containsBean(VirtualThreadConfiguration.HTTP_EXECUTOR));
+            // never a fallback pool of platform threads
+            context.getBeansOfType(ExecutorService.class).values()
+                    .forEach(executor -> assertFalse(executor instanceof ThreadPoolExecutor));
+        });
+    }
+}
@@ -70,7 +70,7 @@ public class GraphQLRegistryAutoConfiguration implements ApplicationListener<App
                 .post(body)
                 .build();
         try (Response response = client.newCall(request).execute()) {
-            if (response.code() == 200 || response.code() == 204) {
+            if (response.isSuccessful()) {
                 return true;
             } else {
                 LOG.error("ERRORS registering {} in {}\n", appName, uri, response.body().string());
@@ -2,17 +2,23 @@ package com.ipl.graphql.registry;
 
 
 import com.ipl.graphql.server.GraphQLProvider;
+import com.ipl.graphql.server.ServiceRegistrations;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RequestMapping("/registry")
 @RestController
 public class RegistryController {
     private final GraphQLProvider graphQLProvider;
+    private final ServiceRegistrations serviceRegistrations;
 
-    public RegistryController(GraphQLProvider graphQLProvider) {
+    public RegistryController(GraphQLProvider graphQLProvider, ServiceRegistrations serviceRegistrations) {
         this.graphQLProvider = graphQLProvider;
+        this.serviceRegistrations = serviceRegistrations;
     }
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
@@ -20,15 +26,32 @@ public class RegistryController {
         return ResponseEntity.ok(graphQLProvider.services());
     }
 
+    /**
+     * Registration state of every service and the schema version including it
+     * @return
+     */
+    @GetMapping(path = "/status", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> status() {
+        return ResponseEntity.ok(serviceRegistrations.statuses());
+    }
+
+    /**
+     * Accepts a registration, the spec is fetched in the background
+     * @param serviceDto
+     * @return
+     */
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> register(@RequestBody ServiceDto serviceDto) {
-        graphQLProvider.register(serviceDto.getName(), serviceDto.getUrl());
-        return ResponseEntity.noContent().build();
+        try {
+            return ResponseEntity.accepted().body(serviceRegistrations.submit(serviceDto.getName(), serviceDto.getUrl()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     @DeleteMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> unregister(@RequestParam("service") String name) {
-        graphQLProvider.unregister(name);
+        serviceRegistrations.unregister(name);
         return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,13 @@
+package com.ipl.graphql.schema;
+
+import graphql.schema.DataFetcher;
+
+/**
+ * Data fetcher blocking its calling thread on upstream calls.
+ * Marked so that the execution can move it off the request thread, fetchers loading through a
+ * DataLoader never block and must stay on the thread dispatching their level.
+ * @param <T>
+ */
+@FunctionalInterface
+public interface BlockingDataFetcher<T> extends DataFetcher<T> {
+}
@@ -0,0 +1,150 @@
+package com.ipl.graphql.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Properties of an upstream response selected by a GraphQL field.
+ * Responses are stream-parsed and only the selected properties are materialized, the rest of the
+ * payload is skipped without being allocated.
+ */
+public final class FieldProjection {
+    /** Every property, used for scalar fields and when the selection is unknown. */
+    public static final FieldProjection ALL = new FieldProjection(null);
+
+    /** Selected properties by name, null for every property. */
+    private final Map<String, FieldProjection> fields;
+    private final String fingerprint;
+
+    private FieldProjection(Map<String, FieldProjection> fields) {
+        this.fields = fields;
+        this.fingerprint = fields == null ? "*" : fields.toString();
+    }
+
+    /**
+     * Projection of the selection set of a field, aliases of the same property are merged
+     * @param selectionSet
+     * @return
+     */
+    public static FieldProjection of(DataFetchingFieldSelectionSet selectionSet) {
+        if (selectionSet == null) {
+            return ALL;
+        }
+        return of(selectionSet.getImmediateFields());
+    }
+
+    private static FieldProjection of(List<SelectedField> selectedFields) {
+        if (selectedFields.isEmpty()) {
+            return ALL;
+        }
+        final Map<String, FieldProjection> fields = new TreeMap<>();
+        for (SelectedField field : selectedFields) {
+            if (field.getName().startsWith("__")) {
+                // introspection fields are resolved by the gateway
+                continue;
+            }
+            final FieldProjection child = field.getSelectionSet() == null
+                    ? ALL
+                    : of(field.getSelectionSet().getImmediateFields());
+            fields.merge(field.getName(), child, FieldProjection::merge);
+        }
+        return new FieldProjection(Collections.unmodifiableMap(fields));
+    }
+
+    private static FieldProjection merge(FieldProjection left, FieldProjection right) {
+        if (left.fields == null || right.fields == null) {
+            return ALL;
+        }
+        final Map<String, FieldProjection> fields = new TreeMap<>(left.fields);
+        right.fields.forEach((name, child) -> fields.merge(name, child, FieldProjection::merge));
+        return new FieldProjection(Collections.unmodifiableMap(fields));
+    }
+
+    /**
+     * Identifies the projection, equal selections have equal fingerprints
+     * @return
+     */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Selected property paths, nested properties are dot separated, e.g. [country.code, name]
+     * @return empty when every property is selected
+     */
+    public List<String> paths() {
+        final List<String> paths = new ArrayList<>();
+        if (fields != null) {
+            fields.forEach((name, child) -> {
+                if (child.fields == null) {
+                    paths.add(name);
+                } else {
+                    child.paths().forEach(path -> paths.add(name + "." + path));
+                }
+            });
+        }
+        return paths;
+    }
+
+    /**
+     * Parses a JSON document, keeping only the selected properties
+     * @param objectMapper
+     * @param json
+     * @return maps, lists and scalars as ObjectMapper would decode them
+     * @throws IOException
+     */
+    public Object read(ObjectMapper objectMapper, InputStream json) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() == null) {
+                return null;
+            }
+            return read(objectMapper, parser);
+        }
+    }
+
+    private Object read(ObjectMapper objectMapper, JsonParser parser) throws IOException {
+        if (fields == null) {
+            return objectMapper.readValue(parser, Object.class);
+        }
+        switch (parser.currentToken()) {
+            case START_ARRAY:
+                final List<Object> items = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    items.add(read(objectMapper, parser));
+                }
+                return items;
+            case START_OBJECT:
+                final Map<String, Object> properties = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final FieldProjection child = fields.get(parser.getCurrentName());
+                    final String name = parser.getCurrentName();
+                    parser.nextToken();
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else {
+                        properties.put(name, child.read(objectMapper, parser));
+                    }
+                }
+                return properties;
+            default:
+                return objectMapper.readValue(parser, Object.class);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return fingerprint;
+    }
+}
@@ -152,6 +152,26 @@ public class GraphQLSchemaBuilder {
         return this;
     }
 
+    /**
+     * Adds the types, fields and data fetchers of a converted service
+     * @param fragment
+     * @return
+     */
+    public GraphQLSchemaBuilder fragment(@NonNull GraphQLSchemaFragment fragment) {
+        return this
+                .queryFields(fragment.getQueryFields())
+                .objectTypes(fragment.getObjectTypes())
+                .mutationFields(fragment.getMutationFields())
+                .inputObjectTypes(fragment.getInputObjectTypes())
+                .dataFetchers(fragment.getDataFetchers());
+    }
+
+    public GraphQLSchemaBuilder fragments(@NonNull Collection<GraphQLSchemaFragment> fragments) {
+        fragments.forEach(this::fragment);
+
+        return this;
+    }
+
     public GraphQLSchema build() {
         GraphQLSchema.Builder schemaBuilder = newSchema();
 
@@ -0,0 +1,32 @@
+package com.ipl.graphql.schema;
+
+import graphql.schema.DataFetcher;
+import graphql.schema.FieldCoordinates;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLInputObjectType;
+import graphql.schema.GraphQLObjectType;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversion result of one registered service.
+ * Fragments are immutable and can be kept between schema builds, so registering or
+ * unregistering a service only converts that service before the schema is assembled again.
+ */
+@Value
+public class GraphQLSchemaFragment {
+    /** Registered service name. */
+    String service;
+    /** Object types. */
+    List<GraphQLObjectType> objectTypes;
+    /** Input types. */
+    List<GraphQLInputObjectType> inputObjectTypes;
+    /** Query fields. */
+    List<GraphQLFieldDefinition> queryFields;
+    /** Mutation fields. */
+    List<GraphQLFieldDefinition> mutationFields;
+    /** Data fetchers. */
+    Map<FieldCoordinates, DataFetcher<?>> dataFetchers;
+}
@@ -0,0 +1,202 @@
+package com.ipl.graphql.schema;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import lombok.NonNull;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Request factory of an operation, compiled once when the schema is built.
+ * The URL template is split around its path parameters, query parameter names are encoded and
+ * defaults are resolved up front, so a call only appends the argument values.
+ */
+public final class InvocationPlan {
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final String INPUT = "input";
+
+    /** Operation id, null when unknown. */
+    private final String operation;
+    private final PathItem.HttpMethod method;
+    /** Literal parts of the URL, one more than the path parameters. */
+    private final String[] segments;
+    private final String[] pathNames;
+    private final String[] pathDefaults;
+    private final String[] queryNames;
+    /** URL encoded query parameter names. */
+    private final String[] queryKeys;
+    private final ObjectMapper objectMapper;
+    private final int sizeHint;
+
+    private InvocationPlan(String operation, PathItem.HttpMethod method, List<String> segments, List<String> pathNames, List<String> pathDefaults,
+                           List<String> queryNames, ObjectMapper objectMapper) {
+        this.operation = operation;
+        this.method = method;
+        this.segments = segments.toArray(new String[0]);
+        this.pathNames = pathNames.toArray(new String[0]);
+        this.pathDefaults = pathDefaults.toArray(new String[0]);
+        this.queryNames = queryNames.toArray(new String[0]);
+        this.queryKeys = queryNames.stream().map(name -> URLEncoder.encode(name, StandardCharsets.UTF_8)).toArray(String[]::new);
+        this.objectMapper = objectMapper;
+        this.sizeHint = segments.stream().mapToInt(String::length).sum() + 16 * (pathNames.size() + queryNames.size());
+    }
+
+    /**
+     * Compiles the invocation plan of an operation
+     * @param url
+     * @param method
+     * @param parameters
+     * @param objectMapper
+     * @return
+     */
+    public static InvocationPlan compile(@NonNull String url, @NonNull PathItem.HttpMethod method, List<Parameter> parameters,
+                                         @NonNull ObjectMapper objectMapper) {
+        return compile(null, url, method, parameters, objectMapper);
+    }
+
+    /**
+     * Compiles the invocation plan of an operation, its requests are tagged with the plan
+     * @param operation operation id, may be null
+     * @param url host and path template, e.g. http://host/makes/{id}
+     * @param method
+     * @param parameters operation parameters, may be null
+     * @param objectMapper serializes the input argument of POST and PUT operations
+     * @return
+     */
+    public static InvocationPlan compile(String operation, @NonNull String url, @NonNull PathItem.HttpMethod method,
+                                         List<Parameter> parameters, @NonNull ObjectMapper objectMapper) {
+        final List<Parameter> declared = Optional.ofNullable(parameters).orElse(Collections.emptyList());
+        // path parameters in the order they appear in the template
+        final List<Parameter> pathParameters = new ArrayList<>();
+        declared.stream()
+                .filter(parameter -> "path".equals(parameter.getIn()))
+                .filter(parameter -> url.contains("{" + parameter.getName() + "}"))
+                .sorted(Comparator.comparingInt(parameter -> url.indexOf("{" + parameter.getName() + "}")))
+                .forEach(pathParameters::add);
+        final List<String> segments = new ArrayList<>();
+        final List<String> pathNames = new ArrayList<>();
+        final List<String> pathDefaults = new ArrayList<>();
+        int start = 0;
+        for (Parameter parameter : pathParameters) {
+            final String placeholder = "{" + parameter.getName() + "}";
+            final int index = url.indexOf(placeholder, start);
+            segments.add(url.substring(start, index));
+            pathNames.add(parameter.getName());
+            pathDefaults.add(Optional.ofNullable(parameter.getSchema())
+                    .map(Schema::getDefault)
+                    .map(Object::toString)
+                    .orElse(null));
+            start = index + placeholder.length();
+        }
+        segments.add(url.substring(start));
+        final List<String> queryNames = new ArrayList<>();
+        declared.stream()
+                .filter(parameter -> "query".equals(parameter.getIn()))
+                .forEach(parameter -> queryNames.add(parameter.getName()));
+        return new InvocationPlan(operation, method, segments, pathNames, pathDefaults, queryNames, objectMapper);
+    }
+
+    /**
+     * Builds the request of a call
+     * @param arguments field arguments
+     * @param traceId sent in the TraceId header
+     * @return
+     */
+    public Request request(Map<String, Object> arguments, String traceId) {
+        final StringBuilder url = new StringBuilder(sizeHint).append(segments[0]);
+        for (int i = 0; i < pathNames.length; i++) {
+            final Object value = arguments.get(pathNames[i]);
+            if (value != null) {
+                url.append(value);
+            } else if (pathDefaults[i] != null) {
+                url.append(pathDefaults[i]);
+            } else {
+                throw new IllegalArgumentException("Missing path parameter " + pathNames[i]);
+            }
+            url.append(segments[i + 1]);
+        }
+        char separator = '?';
+        for (int i = 0; i < queryNames.length; i++) {
+            final Object value = arguments.get(queryNames[i]);
+            if (value == null) {
+                continue;
+            }
+            url.append(separator).append(queryKeys[i]).append('=');
+            appendQueryValue(url, value);
+            separator = '&';
+        }
+        final Request.Builder builder = new Request.Builder()
+                .url(url.toString())
+                .header("TraceId", traceId)
+                .tag(InvocationPlan.class, this);
+        switch (method) {
+            case POST:
+                return builder.post(body(arguments)).build();
+            case PUT:
+                return builder.put(body(arguments)).build();
+            case DELETE:
+                return builder.delete().build();
+            default:
+                return builder.build();
+        }
+    }
+
+    /**
+     * Operation id of the plan
+     * @return null when unknown
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Operation id of a request built by a plan
+     * @param request
+     * @return null when the request was not built by a plan or the operation is unknown
+     */
+    public static String operation(Request request) {
+        final InvocationPlan plan = request.tag(InvocationPlan.class);
+        return plan == null ? null : plan.operation;
+    }
+
+    private RequestBody body(Map<String, Object> arguments) {
+        try {
+            return RequestBody.create(JSON, objectMapper.writeValueAsBytes(arguments.get(INPUT)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Collections are sent comma separated
+     */
+    private static void appendQueryValue(StringBuilder url, Object value) {
+        if (value instanceof Collection) {
+            final Iterator<?> values = ((Collection<?>) value).iterator();
+            while (values.hasNext()) {
+                url.append(URLEncoder.encode(String.valueOf(values.next()), StandardCharsets.UTF_8));
+                if (values.hasNext()) {
+                    url.append("%2C");
+                }
+            }
+        } else {
+            url.append(URLEncoder.encode(value.toString(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.ipl.graphql.schema;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentationState;
 import graphql.schema.*;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.Operation;
@@ -12,11 +12,18 @@ import io.swagger.v3.oas.models.parameters.Parameter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static graphql.Scalars.*;
 import static graphql.schema.GraphQLArgument.newArgument;
@@ -28,7 +35,15 @@ import static graphql.schema.GraphQLObjectType.newObject;
 @Slf4j
 public class OpenApiGraphQLSchemaBuilder {
 
+    /** Vendor extension declaring the bulk variant of a GET operation. */
+    public static final String BATCH_EXTENSION = "x-graphql-batch";
+    /** Vendor extension declaring the sparse fieldset query parameter of a GET operation. */
+    public static final String FIELDS_EXTENSION = "x-graphql-fields";
+
     private final GraphQLSchemaBuilder schemaBuilder;
+    private final UpstreamClients upstreamClients;
+    /** Pool of the parallel conversion, null to convert on the caller thread. */
+    private ForkJoinPool pool;
 
     private final Map<String, GraphQLScalarType> scalarTypes = new HashMap<>() {
         {put("string", GraphQLString);}
@@ -38,91 +53,142 @@ public class OpenApiGraphQLSchemaBuilder {
     };
 
     public OpenApiGraphQLSchemaBuilder() {
+        this(new UpstreamClients());
+    }
+
+    public OpenApiGraphQLSchemaBuilder(@NonNull UpstreamClients upstreamClients) {
         this.schemaBuilder = new GraphQLSchemaBuilder();
+        this.upstreamClients = upstreamClients;
+    }
+
+    /**
+     * Converts schemas and operations in parallel on a pool
+     * @param pool null to convert on the caller thread
+     * @return
+     */
+    public OpenApiGraphQLSchemaBuilder parallel(ForkJoinPool pool) {
+        this.pool = pool;
+
+        return this;
     }
 
     public OpenApiGraphQLSchemaBuilder openapi(OpenAPI openAPI) {
-        log.info("--Building GraphQL schema from OpenAPI--");
+        return openapi(openAPI.getServers().get(0).getUrl(), openAPI);
+    }
+
+    /**
+     * Adds the operations of a registered service
+     * @param service registered service name, data fetchers use the upstream client of this service
+     * @param openAPI
+     * @return
+     */
+    public OpenApiGraphQLSchemaBuilder openapi(String service, OpenAPI openAPI) {
+        schemaBuilder.fragment(fragment(service, openAPI));
+
+        return this;
+    }
+
+    /**
+     * Converts the operations of a registered service without adding them to this builder
+     * @param service registered service name, data fetchers use the upstream client of this service
+     * @param openAPI
+     * @return
+     */
+    public GraphQLSchemaFragment fragment(String service, OpenAPI openAPI) {
+        log.info("--Building GraphQL schema from OpenAPI-- {}", service);
+        final long start = System.nanoTime();
+        final GraphQLSchemaFragment fragment = pool != null
+                ? pool.submit(() -> convert(service, openAPI)).join()
+                : convert(service, openAPI);
+        log.info("--GraphQL fragment of {} ready-- {} types, {} queries, {} mutations in {} ms", service,
+                fragment.getObjectTypes().size() + fragment.getInputObjectTypes().size(),
+                fragment.getQueryFields().size(), fragment.getMutationFields().size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return fragment;
+    }
+
+    /**
+     * Converts schemas and operations, in parallel when a pool is set.
+     * Streams are ordered, so the fragment does not depend on thread scheduling.
+     */
+    private GraphQLSchemaFragment convert(String service, OpenAPI openAPI) {
+        final Map<String, Schema> schemas = Optional.ofNullable(openAPI.getComponents().getSchemas())
+                .orElse(Collections.emptyMap());
+
         // type definitions
-        List<GraphQLObjectType> objectTypes = null != openAPI.getComponents().getSchemas() ?
-                openAPI.getComponents().getSchemas()
-                .entrySet()
-                .stream()
+        List<GraphQLObjectType> objectTypes = stream(schemas.entrySet())
                 .filter(entry -> entry.getKey().endsWith("Dto"))
                 .map(schemaEntry -> toGraphQLObjectType(schemaEntry.getKey(), schemaEntry.getValue()))
-                .collect(Collectors.toList()) : Collections.emptyList();
+                .collect(Collectors.toList());
 
         // input type definitions
-        List<GraphQLInputObjectType> inputObjectTypes = null != openAPI.getComponents().getSchemas() ?
-                openAPI.getComponents().getSchemas()
-                .entrySet()
-                .stream()
+        List<GraphQLInputObjectType> inputObjectTypes = stream(schemas.entrySet())
                 .filter(entry -> entry.getKey().endsWith("Request"))
                 .map(schemaEntry -> toGraphQLInputObjectType(schemaEntry.getKey(), schemaEntry.getValue()))
-                .collect(Collectors.toList()) : Collections.emptyList();
+                .collect(Collectors.toList());
+
+        // operations, flattened first so they can be converted independently
+        final String host = openAPI.getServers().get(0).getUrl();
+        final List<Map.Entry<String, PathItem>> paths = new ArrayList<>(openAPI.getPaths().entrySet());
+        final List<OperationField> operationFields = stream(paths)
+                .flatMap(path -> path.getValue().readOperationsMap().keySet().stream()
+                        .map(method -> toOperationField(service, host, openAPI, path.getKey(), path.getValue(), method)))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
 
         // query type
         List<GraphQLFieldDefinition> queryFields = new ArrayList<>();
 
         // data fetchers
-        Map<FieldCoordinates, DataFetcher<?>> dataFetchers = new HashMap<>();
+        Map<FieldCoordinates, DataFetcher<?>> dataFetchers = new LinkedHashMap<>();
 
         // mutation type
         List<GraphQLFieldDefinition> mutationFields = new ArrayList<>();
 
-        // subscription type
-        List<GraphQLFieldDefinition> subscriptionFields = new ArrayList<>();
-
-        String host = openAPI.getServers().get(0).getUrl();
-        // recommended to use get and post for now
-        openAPI.getPaths().forEach((key, value) -> {
-            Map<PathItem.HttpMethod, Operation> operationsMap = value.readOperationsMap();
-            operationsMap.entrySet().stream()
-                    .map(entry -> {
-                        switch (entry.getKey()) {
-                            case GET:
-                                log.info("GET: {}", entry.getValue());
-                                final GraphQLFieldDefinition queryField = pathToGraphQLField(entry.getValue().getOperationId(), value);
-                                queryFields.add(queryField);
-                                dataFetchers.put(FieldCoordinates.coordinates("Query", queryField.getName()), buildDataFetcher(host, key, value.getGet(), entry.getKey()));
-                                return entry.getValue();
-                            case POST:
-                                log.info("{}: {}", entry.getKey(), entry.getValue());
-                                 final GraphQLFieldDefinition postMutationField = pathToPostGraphQLField(entry.getValue().getOperationId(), value);
-                                 mutationFields.add(postMutationField);
-                                 dataFetchers.put(FieldCoordinates.coordinates("Mutation", postMutationField.getName()), buildDataFetcher(host, key, value.getPost(), entry.getKey()));
-                                 return entry.getValue();
-                            case PUT:
-                                 log.info("{}: {}", entry.getKey(), entry.getValue());
-                                 final GraphQLFieldDefinition putMutationField = pathToPutGraphQLField(entry.getValue().getOperationId(), value);
-                                 mutationFields.add(putMutationField);
-                                 dataFetchers.put(FieldCoordinates.coordinates("Mutation", putMutationField.getName()), buildDataFetcher(host, key, value.getPut(), entry.getKey()));
-                                 return entry.getValue();
-                            case DELETE:
-                                log.info("{}: {}", entry.getKey(), entry.getValue());
-                                final  GraphQLFieldDefinition deleteMutationField = pathToDeleteGraphQLField(entry.getValue().getOperationId(), value);
-                                mutationFields.add(deleteMutationField);
-                                dataFetchers.put(FieldCoordinates.coordinates("Mutation", deleteMutationField.getName()), buildDataFetcher(host, key, value.getDelete(), entry.getKey()));
-                                return entry.getValue();
-                            default:
-                                return null;
-                        }
-                    })
-                    .collect(Collectors.toList());
+        operationFields.forEach(operationField -> {
+            (operationField.isMutation() ? mutationFields : queryFields).add(operationField.getField());
+            dataFetchers.put(FieldCoordinates.coordinates(operationField.isMutation() ? "Mutation" : "Query",
+                    operationField.getField().getName()), operationField.getDataFetcher());
         });
 
-        schemaBuilder
-                .queryFields(queryFields)
-                .objectTypes(objectTypes)
-                .mutationFields(mutationFields)
-                .inputObjectTypes(inputObjectTypes)
-                .dataFetchers(dataFetchers);
+        return new GraphQLSchemaFragment(service, objectTypes, inputObjectTypes, queryFields, mutationFields, dataFetchers);
+    }
 
-        return this;
+    /**
+     * Maps an operation with its field and data fetcher
+     * recommended to use get and post for now
+     * @return null if the method is not supported
+     */
+    private OperationField toOperationField(String service, String host, OpenAPI openAPI, String path, PathItem value,
+                                            PathItem.HttpMethod method) {
+        log.debug("{} {}", method, path);
+        switch (method) {
+            case GET:
+                final GraphQLFieldDefinition queryField = pathToGraphQLField(value.getGet().getOperationId(), value);
+                return new OperationField(false, queryField,
+                        buildDataFetcher(service, host, path, value.getGet(), method, bulkOperation(openAPI, host, value.getGet())));
+            case POST:
+                final GraphQLFieldDefinition postMutationField = pathToPostGraphQLField(value.getPost().getOperationId(), value);
+                return new OperationField(true, postMutationField,
+                        buildDataFetcher(service, host, path, value.getPost(), method, null));
+            case PUT:
+                final GraphQLFieldDefinition putMutationField = pathToPutGraphQLField(value.getPut().getOperationId(), value);
+                return new OperationField(true, putMutationField,
+                        buildDataFetcher(service, host, path, value.getPut(), method, null));
+            case DELETE:
+                final GraphQLFieldDefinition deleteMutationField = pathToDeleteGraphQLField(value.getDelete().getOperationId(), value);
+                return new OperationField(true, deleteMutationField,
+                        buildDataFetcher(service, host, path, value.getDelete(), method, null));
+            default:
+                return null;
+        }
+    }
+
+    private <T> Stream<T> stream(Collection<T> collection) {
+        return pool != null ? collection.parallelStream() : collection.stream();
     }
 
     public GraphQLSchema build() {
-        log.info("--GraphQL schema ready--");
         return schemaBuilder.build();
     }
 
@@ -133,7 +199,7 @@ public class OpenApiGraphQLSchemaBuilder {
      * @return
      */
     private GraphQLFieldDefinition pathToGraphQLField(String name, PathItem pathItem) {
-        log.info("Path to GraphQLFieldDefinition: {} -- {}", name, pathItem.toString());
+        log.debug("Path to GraphQLFieldDefinition: {}", name);
         GraphQLFieldDefinition.Builder builder = newFieldDefinition()
                 .name(name)
                 .type(mapOutputType("",
@@ -158,7 +224,7 @@ public class OpenApiGraphQLSchemaBuilder {
      * @return
      */
     private GraphQLFieldDefinition pathToPostGraphQLField(String name, PathItem pathItem) {
-        log.info("Path to GraphQLFieldDefinition: {} -- {}", name, pathItem.toString());
+        log.debug("Path to GraphQLFieldDefinition: {}", name);
         GraphQLArgument argument = newArgument()
                 .name("input")
                 .type(mapInputType("",
@@ -181,7 +247,7 @@ public class OpenApiGraphQLSchemaBuilder {
      * @return
      */
     private GraphQLFieldDefinition pathToPutGraphQLField(String name, PathItem pathItem) {
-        log.info("Path to GraphQLFieldDefinition: {} -- {}", name, pathItem.toString());
+        log.debug("Path to GraphQLFieldDefinition: {}", name);
         GraphQLArgument argument = newArgument()
                 .name("input")
                 .type(mapInputType("",
@@ -211,7 +277,7 @@ public class OpenApiGraphQLSchemaBuilder {
      * @return
      */
     private GraphQLFieldDefinition pathToDeleteGraphQLField(String name, PathItem pathItem) {
-        log.info("Path to GraphQLFieldDefinition: {} -- {}", name, pathItem.toString());
+        log.debug("Path to GraphQLFieldDefinition: {}", name);
         GraphQLFieldDefinition.Builder builder = newFieldDefinition()
                 .name(name)
                 .type(mapOutputType("",
@@ -249,10 +315,10 @@ public class OpenApiGraphQLSchemaBuilder {
     private GraphQLInputType mapInputType(Parameter parameter) {
         final String fieldName = parameter.getName();
         String swaggerType = parameter.getSchema().getType();
-        log.info("input schema type -- {}", swaggerType);
+        log.debug("input schema type -- {}", swaggerType);
         if (isID(fieldName)) {
             return GraphQLID;
-        } else if (isReference(parameter.getSchema())) {
+        } else if (isReference(parameter.getSchema()) || isArray(parameter.getSchema())) {
             return mapInputType(fieldName, parameter.getSchema()).orElse(null);
         } else {
             return scalarTypes.get(swaggerType);
@@ -309,17 +375,17 @@ public class OpenApiGraphQLSchemaBuilder {
         GraphQLOutputType outputType = null;
 
         if (isID(name)) {
-            log.info("{} is ID", name);
+            log.debug("{} is ID", name);
             outputType = GraphQLID;
         } else if (scalarTypes.containsKey(schema.getType())) {
             outputType = scalarTypes.get(schema.getType());
-            log.info("{} is scalar type: {}", name, outputType);
+            log.debug("{} is scalar type: {}", name, outputType);
         } else if (isReference(schema)) {
             outputType = GraphQLTypeReference.typeRef(schema.get$ref().replace("#/components/schemas/", ""));
-            log.info("{} is reference type: {}", name, outputType);
+            log.debug("{} is reference type: {}", name, outputType);
         } else if (isArray(schema)) {
             outputType = GraphQLList.list(Objects.requireNonNull(mapOutputType(name, ((ArraySchema) schema).getItems()).orElse(null)));
-            log.info("{} is array type {}", name, outputType);
+            log.debug("{} is array type {}", name, outputType);
         }
         return Optional.ofNullable(outputType);
     }
@@ -328,17 +394,17 @@ public class OpenApiGraphQLSchemaBuilder {
         GraphQLInputType inputType = null;
 
         if (isID(name)) {
-            log.info("{} is ID", name);
+            log.debug("{} is ID", name);
             inputType = GraphQLID;
         } else if (scalarTypes.containsKey(schema.getType())) {
             inputType = scalarTypes.get(schema.getType());
-            log.info("{} is scalar type: {}", name, inputType);
+            log.debug("{} is scalar type: {}", name, inputType);
         } else if (isReference(schema)) {
             inputType = GraphQLTypeReference.typeRef(schema.get$ref().replace("#/components/schemas/", ""));
-            log.info("{} is reference type: {}", name, inputType);
+            log.debug("{} is reference type: {}", name, inputType);
         } else if (isArray(schema)) {
             inputType = GraphQLList.list(Objects.requireNonNull(mapInputType(name, ((ArraySchema) schema).getItems()).orElse(null)));
-            log.info("{} is array type {}", name, inputType);
+            log.debug("{} is array type {}", name, inputType);
         }
         return Optional.ofNullable(inputType);
     }
@@ -347,86 +413,176 @@ public class OpenApiGraphQLSchemaBuilder {
      * Builds DataFetcher for a given query field
      * @return
      */
-    private DataFetcher buildDataFetcher(String host, String path, Operation operation, PathItem.HttpMethod httpMethod) {
-        final OkHttpClient client = new OkHttpClient();
-        final ObjectMapper objectMapper = new ObjectMapper();
+    private DataFetcher buildDataFetcher(String service, String host, String path, Operation operation, PathItem.HttpMethod httpMethod,
+                                         UpstreamBatchLoader.Bulk bulk) {
+        final ObjectMapper objectMapper = upstreamClients.objectMapper();
         final String url = host + path;
-        log.info("fetch data from host -- {}", host);
-        log.info("fetch data from url -- {}", url);
-        List<String> pathParams = Optional.ofNullable(operation.getParameters()).orElse(Collections.emptyList())
+        log.debug("fetch data from url -- {}", url);
+        // compiled once, a call only binds the arguments
+        final InvocationPlan plan = InvocationPlan.compile(operation.getOperationId(), url, httpMethod, operation.getParameters(),
+                objectMapper);
+        final BiFunction<Map<String, Object>, String, Request> requestFactory = plan::request;
+        final boolean batching = httpMethod == PathItem.HttpMethod.GET && (bulk != null || upstreamClients.isBatching());
+        final String dataLoaderName = service + "/" + operation.getOperationId();
+        final String fieldsParameter = httpMethod == PathItem.HttpMethod.GET ? fieldsParameter(operation) : null;
+        final DataFetcher<Object> dataFetcher = dataFetchingEnvironment -> {
+            final String traceId = dataFetchingEnvironment.getExecutionId().toString();
+            final FieldProjection projection = FieldProjection.of(dataFetchingEnvironment.getSelectionSet());
+            final Map<String, Object> arguments = pushDown(fieldsParameter, dataFetchingEnvironment.getArguments(), projection);
+            final DataLoaderRegistry dataLoaderRegistry = dataFetchingEnvironment.getDataLoaderRegistry();
+            if (batching && dataLoaderRegistry != null
+                    && dataLoaderRegistry != DataLoaderDispatcherInstrumentationState.EMPTY_DATALOADER_REGISTRY) {
+                // calls of this operation are collected per dispatch level and sent together
+                DataLoader<Map<String, Object>, Object> dataLoader = dataLoaderRegistry.computeIfAbsent(dataLoaderName,
+                        name -> DataLoader.newMappedDataLoaderWithTry(new UpstreamBatchLoader(service, upstreamClients,
+                                requestFactory, response -> readResponse(service, objectMapper, response, FieldProjection.ALL), bulk)));
+                return dataLoader.load(arguments, traceId);
+            }
+            final Request request = requestFactory.apply(arguments, traceId);
+            final UpstreamCallMemo memo = httpMethod == PathItem.HttpMethod.GET
+                    ? UpstreamCallMemo.from(dataFetchingEnvironment.getContext())
+                    : null;
+            if (memo != null) {
+                // identical GET calls of the same execution and selection share one upstream request and its decoded result
+                final FieldProjection decoded = upstreamClients.responseCache().isEnabled(service) ? FieldProjection.ALL : projection;
+                return memo.computeIfAbsent(request, decoded, () -> fetch(service, objectMapper, request, projection));
+            }
+            return fetch(service, objectMapper, request, projection);
+        };
+        // batched fetchers only register their load, the others wait for the call unless it is async
+        return batching || upstreamClients.isAsync() ? dataFetcher : (BlockingDataFetcher<Object>) dataFetcher::get;
+    }
+
+    /**
+     * Calls the upstream, GET responses go through the response cache when it is enabled for the service
+     * @param projection properties decoded from responses that are not cached
+     * @return
+     */
+    private CompletableFuture<Object> fetch(String service, ObjectMapper objectMapper, Request request, FieldProjection projection) {
+        if (request.method().equals("GET") && upstreamClients.responseCache().isEnabled(service)) {
+            // cached bodies are shared by every selection, they are decoded in full
+            return upstreamClients.responseCache().get(service, request,
+                    cacheMiss -> upstreamClients.call(service, cacheMiss),
+                    // stale responses are served at once, their refresh never blocks the request thread
+                    stale -> upstreamClients.callAsync(service, stale),
+                    response -> readResponse(service, objectMapper, response, FieldProjection.ALL));
+        }
+        // non-blocking when async fetchers are enabled, AsyncExecutionStrategy fans out sibling fields while the call is in flight
+        return upstreamClients.call(service, request)
+                .thenApply(response -> readResponse(service, objectMapper, response, projection));
+    }
+
+    /**
+     * Returns the sparse fieldset query parameter of a GET operation declared with the x-graphql-fields extension
+     * <pre>
+     * "x-graphql-fields": {"parameter": "fields"}
+     * </pre>
+     * The selected properties are sent comma separated, nested properties dot separated, e.g. fields=country.code,name
+     * @return null when the operation declares no usable fieldset parameter
+     */
+    private String fieldsParameter(Operation operation) {
+        Object extension = Optional.ofNullable(operation.getExtensions()).map(ext -> ext.get(FIELDS_EXTENSION)).orElse(null);
+        if (!(extension instanceof Map)) {
+            return null;
+        }
+        final Object parameter = ((Map<?, ?>) extension).get("parameter");
+        final boolean declared = parameter != null && Optional.ofNullable(operation.getParameters()).orElse(Collections.emptyList())
                 .stream()
-                .filter(parameter -> parameter.getIn().equals("path"))
-                .map(Parameter::getName)
-                .collect(Collectors.toList());
-        log.info(pathParams.toString());
-        List<String> queryParams = Optional.ofNullable(operation.getParameters()).orElse(Collections.emptyList())
+                .anyMatch(declaredParameter -> "query".equals(declaredParameter.getIn()) && declaredParameter.getName().equals(parameter));
+        if (!declared) {
+            log.warn("{} of {} is ignored, the parameter has to be a query parameter of the operation", FIELDS_EXTENSION, operation.getOperationId());
+            return null;
+        }
+        return parameter.toString();
+    }
+
+    /**
+     * Adds the selected properties to the arguments of a call, unless the client set the fieldset parameter itself
+     * @return the arguments of the call
+     */
+    private static Map<String, Object> pushDown(String fieldsParameter, Map<String, Object> arguments, FieldProjection projection) {
+        if (fieldsParameter == null || arguments.get(fieldsParameter) != null) {
+            return arguments;
+        }
+        final List<String> paths = projection.paths();
+        if (paths.isEmpty()) {
+            return arguments;
+        }
+        final Map<String, Object> pushedDown = new HashMap<>(arguments);
+        pushedDown.put(fieldsParameter, paths);
+        return pushedDown;
+    }
+
+    /**
+     * Returns the bulk variant of a GET operation declared with the x-graphql-batch extension
+     * <pre>
+     * "x-graphql-batch": {"operationId": "getMakesByIds", "parameter": "ids", "key": "id"}
+     * </pre>
+     * operationId is a GET operation taking the array query parameter "parameter",
+     * "key" is the property of the returned items matching the single argument of the operation.
+     * @return null when the operation declares no usable bulk variant
+     */
+    private UpstreamBatchLoader.Bulk bulkOperation(OpenAPI openAPI, String host, Operation operation) {
+        Object extension = Optional.ofNullable(operation.getExtensions()).map(ext -> ext.get(BATCH_EXTENSION)).orElse(null);
+        if (!(extension instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> batch = (Map<?, ?>) extension;
+        List<Parameter> parameters = Optional.ofNullable(operation.getParameters()).orElse(Collections.emptyList());
+        Optional<Map.Entry<String, PathItem>> bulkPath = openAPI.getPaths().entrySet().stream()
+                .filter(path -> path.getValue().getGet() != null
+                        && Objects.equals(path.getValue().getGet().getOperationId(), batch.get("operationId")))
+                .findFirst();
+        if (parameters.size() != 1 || bulkPath.isEmpty() || batch.get("parameter") == null) {
+            log.warn("{} of {} is ignored, a single parameter and a GET bulk operation are required", BATCH_EXTENSION, operation.getOperationId());
+            return null;
+        }
+        final String bulkParameter = batch.get("parameter").toString();
+        final boolean explode = Optional.ofNullable(bulkPath.get().getValue().getGet().getParameters()).orElse(Collections.emptyList())
                 .stream()
-                .filter(parameter -> parameter.getIn().equals("query"))
-                .map(Parameter::getName)
-                .collect(Collectors.toList());
-        log.info(queryParams.toString());
-        return dataFetchingEnvironment -> {
-            String urlParams = pathParams
-                    .stream()
-                    .reduce(url, (acc, curr) -> url.replaceAll(String.format("\\{%s}", curr),
-                            null != dataFetchingEnvironment.getArgument(curr)
-                                    ? dataFetchingEnvironment.getArgument(curr).toString()
-                                    : Objects.requireNonNull(operation.getParameters()
-                                    .stream()
-                                    .filter(parameter -> parameter.getName().equals(curr))
-                                    .findFirst().orElse(null))
-                                    .getSchema()
-                                    .getDefault().toString()));
-            okhttp3.RequestBody requestBody = okhttp3.RequestBody
-                    .create(MediaType.parse("application/json; charset=utf-8"), objectMapper.writeValueAsString(dataFetchingEnvironment.getArgument("input")));
-            Map<String, String> queryParamMap = new HashMap<>();
-            queryParams.forEach(queryParam -> queryParamMap.put(queryParam, dataFetchingEnvironment.getArgument(queryParam).toString()));
-            String urlString = formatUrlWithQueryParameters(urlParams, queryParamMap);
-            Request request;
-            Headers headers = new Headers.Builder()
-                    .add("TraceId", dataFetchingEnvironment.getExecutionId().toString())
-                    .build();
-            switch (httpMethod) {
-                case POST:
-                    request = new Request.Builder()
-                            .headers(headers)
-                            .url(urlString)
-                            .post(requestBody)
-                            .build();
-                    break;
-                case PUT:
-                    request = new Request.Builder()
-                            .headers(headers)
-                            .url(urlString)
-                            .put(requestBody)
+                .filter(parameter -> parameter.getName().equals(bulkParameter))
+                .findFirst()
+                .map(parameter -> !Boolean.FALSE.equals(parameter.getExplode()))
+                .orElse(true);
+        final String bulkUrl = host + bulkPath.get().getKey();
+        return new UpstreamBatchLoader.Bulk(
+                parameters.get(0).getName(),
+                Optional.ofNullable(batch.get("key")).map(Object::toString).orElse("id"),
+                (values, traceId) -> {
+                    HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(bulkUrl)).newBuilder();
+                    if (explode) {
+                        values.forEach(value -> urlBuilder.addQueryParameter(bulkParameter, String.valueOf(value)));
+                    } else {
+                        urlBuilder.addQueryParameter(bulkParameter, values.stream().map(String::valueOf).collect(Collectors.joining(",")));
+                    }
+                    return new Request.Builder()
+                            .header("TraceId", traceId)
+                            .url(urlBuilder.build())
                             .build();
-                    break;
-                case DELETE:
-                    request = new Request.Builder()
-                            .headers(headers)
-                            .url(urlString)
-                            .delete()
-                            .build();
-                    break;
-                default:
-                    request = new Request.Builder()
-                            .headers(headers)
-                            .url(urlString)
-                            .build();
-                    break;
-            }
-            log.info("request -- {}", request);
-            Response response = client.newCall(request).execute();
+                });
+    }
+
+    /**
+     * Stream-decodes a JSON response, returns null when the upstream call did not succeed
+     * @param objectMapper
+     * @param response
+     * @param projection properties to materialize, the others are skipped
+     * @return
+     */
+    private Object readResponse(String service, ObjectMapper objectMapper, Response response, FieldProjection projection) {
+        try (response) {
             if (response.isSuccessful()) {
-                final String json = response.body().string();
-                return objectMapper.readValue(json, new TypeReference<>(){});
+                final long start = System.nanoTime();
+                final Object body = projection.read(objectMapper, response.body().byteStream());
+                upstreamClients.metrics().recordDecode(service, System.nanoTime() - start);
+                return body;
             }
             return null;
-        };
-
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-
     /**
      * Returns true if swagger property is Type reference
      * @param swaggerSchema
@@ -456,10 +612,10 @@ public class OpenApiGraphQLSchemaBuilder {
     }
 
     private String pathToType(String path) {
-        log.info("Path to type: path -- {}", path);
+        log.debug("Path to type: path -- {}", path);
         String type = Arrays.stream(path.split("/"))
                 .reduce("", (acc, curr) -> (acc.isBlank())?curr: acc + buildPathName(curr));
-        log.info("Path to type: type -- {}", type);
+        log.debug("Path to type: type -- {}", type);
         return type.replaceAll("-", ""); // TODO: 15/07/22 convert to camel case
     }
 
@@ -486,22 +642,13 @@ public class OpenApiGraphQLSchemaBuilder {
         return str.substring(0, 1).toUpperCase() + str.substring(1);
     }
 
-     private String formatUrlWithQueryParameters(String baseUrl, Map<String, String> queryParams) {
-        StringBuilder urlBuilder = new StringBuilder(baseUrl);
-
-        if (!queryParams.isEmpty()) {
-            urlBuilder.append('?');
-
-            for (Map.Entry<String, String> entry : queryParams.entrySet()) {
-                String key = URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8);
-                String value = URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8);
-                urlBuilder.append(key).append('=').append(value).append('&');
-            }
-
-            // Remove the last '&' character
-            urlBuilder.deleteCharAt(urlBuilder.length() - 1);
-        }
-
-        return urlBuilder.toString();
+    /**
+     * Query or mutation field of an operation with its data fetcher
+     */
+    @lombok.Value
+    private static class OperationField {
+        boolean mutation;
+        GraphQLFieldDefinition field;
+        DataFetcher<?> dataFetcher;
     }
 }
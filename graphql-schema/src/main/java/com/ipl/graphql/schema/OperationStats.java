@@ -0,0 +1,121 @@
+package com.ipl.graphql.schema;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measured latency of upstream operations.
+ * Every operation keeps an exponentially weighted mean and a window of its most recent samples,
+ * so estimates follow the upstream when it speeds up or slows down.
+ */
+public class OperationStats {
+    /** Recent samples kept per operation. */
+    public static final int WINDOW = 256;
+    /** Weight of a new sample in the mean. */
+    private static final double ALPHA = 0.1;
+    /** New samples after which a percentile is computed again, it is cached meanwhile. */
+    private static final int PERCENTILE_REFRESH = 16;
+
+    private final ConcurrentMap<String, Tracker> trackers = new ConcurrentHashMap<>();
+
+    /**
+     * Records the latency of a call
+     * @param operation
+     * @param nanos
+     */
+    public void record(@NonNull String operation, long nanos) {
+        trackers.computeIfAbsent(operation, key -> new Tracker()).record(nanos);
+    }
+
+    /**
+     * Weighted mean latency of an operation
+     * @param operation
+     * @return 0 when the operation was never called
+     */
+    public double meanMillis(String operation) {
+        final Tracker tracker = trackers.get(operation);
+        return tracker == null ? 0 : tracker.meanMillis();
+    }
+
+    /**
+     * Latency percentile of the recent calls of an operation, recomputed every few samples
+     * @param operation
+     * @param percentile between 0 and 1, e.g. 0.95
+     * @return 0 when the operation was never called
+     */
+    public double percentileMillis(String operation, double percentile) {
+        final Tracker tracker = trackers.get(operation);
+        return tracker == null ? 0 : tracker.percentileMillis(percentile);
+    }
+
+    /**
+     * Number of recorded calls of an operation
+     * @param operation
+     * @return
+     */
+    public long count(String operation) {
+        final Tracker tracker = trackers.get(operation);
+        return tracker == null ? 0 : tracker.count();
+    }
+
+    /**
+     * Forgets the operations starting with a prefix, e.g. those of an unregistered service
+     * @param prefix
+     */
+    public void evict(String prefix) {
+        trackers.keySet().removeIf(operation -> operation.startsWith(prefix));
+    }
+
+    private static final class Tracker {
+        private final long[] samples = new long[WINDOW];
+        private long count;
+        private double mean;
+        /** Last computed percentile, its value and the count it was computed at. */
+        private double cachedPercentile = -1;
+        private double cachedMillis;
+        private long cachedCount;
+
+        synchronized void record(long nanos) {
+            samples[(int) (count % WINDOW)] = nanos;
+            mean = count == 0 ? nanos : mean + ALPHA * (nanos - mean);
+            count++;
+        }
+
+        synchronized double meanMillis() {
+            return mean / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        double percentileMillis(double percentile) {
+            final long[] window;
+            final long at;
+            synchronized (this) {
+                if (count == 0) {
+                    return 0;
+                }
+                if (percentile == cachedPercentile && count - cachedCount < PERCENTILE_REFRESH) {
+                    return cachedMillis;
+                }
+                at = count;
+                window = Arrays.copyOf(samples, (int) Math.min(count, WINDOW));
+            }
+            // sorted outside the lock, recording never waits for it
+            Arrays.sort(window);
+            final int index = (int) Math.ceil(percentile * window.length) - 1;
+            final double millis = (double) window[Math.max(0, Math.min(index, window.length - 1))] / TimeUnit.MILLISECONDS.toNanos(1);
+            synchronized (this) {
+                cachedPercentile = percentile;
+                cachedMillis = millis;
+                cachedCount = at;
+            }
+            return millis;
+        }
+    }
+}
@@ -15,10 +15,11 @@ import io.swagger.models.properties.Property;
 import io.swagger.models.properties.RefProperty;
 import io.swagger.parser.SwaggerParser;
 import lombok.NonNull;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -30,9 +31,15 @@ import static graphql.schema.GraphQLObjectType.newObject;
 public class SwaggerGraphQLSchemaBuilder {
 
     private final GraphQLSchemaBuilder schemaBuilder;
+    private final UpstreamClients upstreamClients;
 
     public SwaggerGraphQLSchemaBuilder() {
+        this(new UpstreamClients());
+    }
+
+    public SwaggerGraphQLSchemaBuilder(@NonNull UpstreamClients upstreamClients) {
         this.schemaBuilder = new GraphQLSchemaBuilder();
+        this.upstreamClients = upstreamClients;
     }
 
     public SwaggerGraphQLSchemaBuilder swagger(String location) {
@@ -40,6 +47,28 @@ public class SwaggerGraphQLSchemaBuilder {
     }
 
     public SwaggerGraphQLSchemaBuilder swagger(Swagger swagger) {
+        return swagger(swagger.getHost(), swagger);
+    }
+
+    /**
+     * Adds the paths of a registered service
+     * @param service registered service name, data fetchers use the upstream client of this service
+     * @param swagger
+     * @return
+     */
+    public SwaggerGraphQLSchemaBuilder swagger(String service, Swagger swagger) {
+        schemaBuilder.fragment(fragment(service, swagger));
+
+        return this;
+    }
+
+    /**
+     * Converts the paths of a registered service without adding them to this builder
+     * @param service registered service name, data fetchers use the upstream client of this service
+     * @param swagger
+     * @return
+     */
+    public GraphQLSchemaFragment fragment(String service, Swagger swagger) {
         // Types
         List<GraphQLObjectType> objectTypes = swagger.getDefinitions().entrySet()
                 .stream()
@@ -55,16 +84,12 @@ public class SwaggerGraphQLSchemaBuilder {
         swagger.getPaths().forEach((key, value) -> {
             final GraphQLFieldDefinition queryField = pathToGraphQLField(key, value);
             queryFields.add(queryField);
-            dataFetchers.put(FieldCoordinates.coordinates("Query", queryField.getName()), buildDataFetcher(host, basePath, key, value));
+            dataFetchers.put(FieldCoordinates.coordinates("Query", queryField.getName()), buildDataFetcher(service, host, basePath, key, value));
         });
 
         // TODO Add mutation
-        schemaBuilder
-                .queryFields(queryFields)
-                .objectTypes(objectTypes)
-                .dataFetchers(dataFetchers);
-
-        return this;
+        return new GraphQLSchemaFragment(service, objectTypes, Collections.emptyList(), queryFields,
+                Collections.emptyList(), dataFetchers);
     }
 
     public GraphQLSchema build() {
@@ -149,25 +174,39 @@ public class SwaggerGraphQLSchemaBuilder {
      * Builds DataFetcher for a given query field
      * @return
      */
-    private DataFetcher buildDataFetcher(String host, String basePath, String path, Path swaggerPath) {
-        final OkHttpClient client = new OkHttpClient();
-        final ObjectMapper objectMapper = new ObjectMapper();
+    private DataFetcher buildDataFetcher(String service, String host, String basePath, String path, Path swaggerPath) {
+        final ObjectMapper objectMapper = upstreamClients.objectMapper();
         final String url = host + buildPath(basePath, path);
         List<String> pathParams = Optional.ofNullable(swaggerPath.getGet().getParameters()).orElse(Collections.emptyList())
                 .stream()
                 .map(Parameter::getName)
                 .collect(Collectors.toList());
 
-        return dataFetchingEnvironment -> {
+        final DataFetcher<Object> dataFetcher = dataFetchingEnvironment -> {
             String urlParams = pathParams
                     .stream()
                     .reduce(url, (acc, curr) -> url.replaceAll(String.format("\\{%s}", curr), dataFetchingEnvironment.getArgument(curr).toString()));
             Request request = new Request.Builder().url(urlParams).build();
-            Response response = client.newCall(request).execute();
-            final String json = response.body().string();
+            // through the circuit breaker, retries and hedging of the service, non-blocking when async fetchers are enabled
+            return upstreamClients.call(service, request)
+                    .thenApply(response -> readResponse(objectMapper, response));
+        };
+        return upstreamClients.isAsync() ? dataFetcher : (BlockingDataFetcher<Object>) dataFetcher::get;
+    }
 
+    /**
+     * Decodes a JSON response
+     * @param objectMapper
+     * @param response
+     * @return
+     */
+    private Object readResponse(ObjectMapper objectMapper, Response response) {
+        try (response) {
+            final String json = response.body().string();
             return objectMapper.readValue(json, new TypeReference<>(){});
-        };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
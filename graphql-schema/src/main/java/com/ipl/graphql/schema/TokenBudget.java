@@ -0,0 +1,34 @@
+package com.ipl.graphql.schema;
+
+/**
+ * Budget of extra calls, e.g. retries or hedges.
+ * Every call deposits a fraction of a token, an extra call withdraws a whole one, so extra calls stay
+ * below that fraction of the calls once the burst is spent.
+ */
+class TokenBudget {
+    private final double ratio;
+    private final double burst;
+    private double balance;
+
+    TokenBudget(double ratio, int burst) {
+        this.ratio = ratio;
+        this.burst = burst;
+        this.balance = burst;
+    }
+
+    synchronized void deposit() {
+        balance = Math.min(burst, balance + ratio);
+    }
+
+    synchronized boolean tryWithdraw() {
+        if (balance < 1) {
+            return false;
+        }
+        balance--;
+        return true;
+    }
+
+    synchronized double balance() {
+        return balance;
+    }
+}
@@ -0,0 +1,107 @@
+package com.ipl.graphql.schema;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.dataloader.BatchLoaderEnvironment;
+import org.dataloader.MappedBatchLoaderWithContext;
+import org.dataloader.Try;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Batch loader of a GET operation, keyed by the field arguments.
+ * Calls collected during one dispatch level are sent together: as one request to the bulk variant
+ * of the operation when the spec declares one, otherwise as concurrent single requests.
+ */
+@Slf4j
+public class UpstreamBatchLoader implements MappedBatchLoaderWithContext<Map<String, Object>, Try<Object>> {
+
+    private final String service;
+    private final UpstreamClients upstreamClients;
+    private final BiFunction<Map<String, Object>, String, Request> singleRequest;
+    private final Function<Response, Object> decoder;
+    private final Bulk bulk;
+
+    public UpstreamBatchLoader(@NonNull String service, @NonNull UpstreamClients upstreamClients,
+                               @NonNull BiFunction<Map<String, Object>, String, Request> singleRequest,
+                               @NonNull Function<Response, Object> decoder, Bulk bulk) {
+        this.service = service;
+        this.upstreamClients = upstreamClients;
+        this.singleRequest = singleRequest;
+        this.decoder = decoder;
+        this.bulk = bulk;
+    }
+
+    @Override
+    public CompletionStage<Map<Map<String, Object>, Try<Object>>> load(Set<Map<String, Object>> keys, BatchLoaderEnvironment environment) {
+        final String traceId = environment.getKeyContextsList().stream()
+                .filter(Objects::nonNull)
+                .map(Object::toString)
+                .findFirst().orElse(null);
+        log.debug("batch of {} calls to {}", keys.size(), service);
+        return bulk != null && keys.size() > 1 ? loadBulk(keys, traceId) : loadEach(keys, traceId);
+    }
+
+    private CompletionStage<Map<Map<String, Object>, Try<Object>>> loadEach(Set<Map<String, Object>> keys, String traceId) {
+        final Map<Map<String, Object>, CompletableFuture<Try<Object>>> calls = new LinkedHashMap<>();
+        keys.forEach(key -> calls.put(key, call(() -> singleRequest.apply(key, traceId))
+                .thenApply(Try::succeeded)
+                .exceptionally(Try::failed)));
+        return CompletableFuture.allOf(calls.values().toArray(new CompletableFuture[0]))
+                .thenApply(done -> {
+                    Map<Map<String, Object>, Try<Object>> results = new HashMap<>();
+                    calls.forEach((key, call) -> results.put(key, call.join()));
+                    return results;
+                });
+    }
+
+    private CompletionStage<Map<Map<String, Object>, Try<Object>>> loadBulk(Set<Map<String, Object>> keys, String traceId) {
+        final List<Object> values = new ArrayList<>();
+        keys.forEach(key -> values.add(key.get(bulk.getArgument())));
+        return call(() -> bulk.getRequest().apply(values, traceId))
+                .handle((items, e) -> {
+                    Map<Map<String, Object>, Try<Object>> results = new HashMap<>();
+                    if (e != null) {
+                        keys.forEach(key -> results.put(key, Try.failed(e)));
+                        return results;
+                    }
+                    // split the bulk response back per key
+                    Map<String, Object> itemsByKey = new HashMap<>();
+                    if (items instanceof Collection) {
+                        ((Collection<?>) items).stream()
+                                .filter(Map.class::isInstance)
+                                .forEach(item -> itemsByKey.put(String.valueOf(((Map<?, ?>) item).get(bulk.getKey())), item));
+                    }
+                    keys.forEach(key -> results.put(key, Try.succeeded(itemsByKey.get(String.valueOf(key.get(bulk.getArgument()))))));
+                    return results;
+                });
+    }
+
+    private CompletableFuture<Object> call(Callable<Request> request) {
+        try {
+            return upstreamClients.callAsync(service, request.call()).thenApply(decoder);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Bulk variant of an operation, declared with the x-graphql-batch extension
+     */
+    @lombok.Value
+    public static class Bulk {
+        /** Argument of the single operation sent in the bulk request. */
+        String argument;
+        /** Property of the bulk response items matching the argument. */
+        String key;
+        /** Builds the bulk request from the argument values and the trace id. */
+        BiFunction<List<Object>, String, Request> request;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ipl.graphql.schema;
+
+import graphql.GraphQLContext;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes upstream calls within one GraphQL execution.
+ * Stored in the execution GraphQLContext, calls with the same method, url, body and projection share
+ * one upstream request and its decoded result, e.g. aliases of the same field with the same arguments
+ * and selection. Results are stream-decoded, a response body is never buffered to be shared.
+ */
+@Slf4j
+public class UpstreamCallMemo {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the memo of an execution
+     * @param context execution context
+     * @return null when the execution has no memo
+     */
+    public static UpstreamCallMemo from(Object context) {
+        return context instanceof GraphQLContext
+                ? ((GraphQLContext) context).get(UpstreamCallMemo.class)
+                : null;
+    }
+
+    /**
+     * Adds a new memo to an execution context
+     * @param context
+     */
+    public static void attach(GraphQLContext context) {
+        context.put(UpstreamCallMemo.class, new UpstreamCallMemo());
+    }
+
+    /**
+     * Returns the result of a previous identical call or makes the call.
+     * Only the first caller runs the call, the others wait for its result.
+     * @param request
+     * @param projection properties decoded by the call
+     * @param call
+     * @return
+     */
+    public CompletableFuture<Object> computeIfAbsent(Request request, FieldProjection projection,
+                                                     Supplier<CompletableFuture<Object>> call) {
+        final String key = key(request) + " " + projection.fingerprint();
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        final CompletableFuture<Object> previous = calls.putIfAbsent(key, result);
+        if (previous != null) {
+            log.debug("memoized call -- {}", key);
+            return previous;
+        }
+        try {
+            call.get().whenComplete((value, e) -> {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static String key(Request request) {
+        final StringBuilder key = new StringBuilder(request.method()).append(' ').append(request.url());
+        if (request.body() != null) {
+            try (Buffer buffer = new Buffer()) {
+                request.body().writeTo(buffer);
+                key.append(' ').append(buffer.readUtf8());
+            } catch (IOException e) {
+                // not expected with an in-memory buffer, the call is then never shared
+                key.append(' ').append(System.identityHashCode(request));
+            }
+        }
+        return key.toString();
+    }
+}
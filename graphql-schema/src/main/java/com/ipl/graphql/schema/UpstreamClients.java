@@ -0,0 +1,270 @@
+package com.ipl.graphql.schema;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upstream HTTP clients, one per registered service.
+ * Every client is derived from the same root client, so they all share one connection pool and
+ * one dispatcher. Instances are meant to outlive schema rebuilds: data fetchers built for a new
+ * schema keep reusing the pooled keep-alive connections.
+ */
+@Slf4j
+public class UpstreamClients {
+
+    private final UpstreamOptions options;
+    private final OkHttpClient rootClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentMap<String, OkHttpClient> clients = new ConcurrentHashMap<>();
+    private final UpstreamResponseCache responseCache;
+    private final UpstreamResilience resilience;
+    private final UpstreamHedging hedging;
+    private final UpstreamMetrics metrics;
+
+    public UpstreamClients() {
+        this(new UpstreamOptions());
+    }
+
+    public UpstreamClients(@NonNull UpstreamOptions options) {
+        this(options, new SimpleMeterRegistry());
+    }
+
+    public UpstreamClients(@NonNull UpstreamOptions options, @NonNull MeterRegistry meterRegistry) {
+        this.options = options;
+        this.responseCache = new UpstreamResponseCache(options, meterRegistry);
+        this.resilience = new UpstreamResilience(options, meterRegistry);
+        this.hedging = new UpstreamHedging(options, meterRegistry);
+        this.metrics = new UpstreamMetrics(meterRegistry);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(options.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(options.getMaxRequestsPerHost());
+        this.rootClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(options.getMaxIdleConnections(),
+                        options.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .build();
+    }
+
+    /**
+     * Returns the client of a service, creating it on first use
+     * @param service registered service name
+     * @return
+     */
+    public OkHttpClient client(@NonNull String service) {
+        return clients.computeIfAbsent(service, this::newClient);
+    }
+
+    /**
+     * Returns the client shared by all services, for calls made on behalf of no particular service e.g. spec downloads
+     * @return
+     */
+    public OkHttpClient sharedClient() {
+        return rootClient;
+    }
+
+    private CompletableFuture<Response> enqueue(Call call) {
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        future.whenComplete((response, e) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                if (!future.complete(response)) {
+                    response.close();
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Calls a service, on the caller thread unless async fetchers are enabled
+     * @param service registered service name
+     * @param request
+     * @return
+     */
+    public CompletableFuture<Response> call(String service, Request request) {
+        return call(service, request, !isAsync());
+    }
+
+    /**
+     * Calls a service without blocking the caller, e.g. from a DataLoader
+     * @param service registered service name
+     * @param request
+     * @return
+     */
+    public CompletableFuture<Response> callAsync(String service, Request request) {
+        return call(service, request, false);
+    }
+
+    /**
+     * Calls a service through its circuit breaker, failed GET calls are retried within the call timeout
+     */
+    private CompletableFuture<Response> call(String service, Request request, boolean blocking) {
+        final OkHttpClient client = client(service);
+        return resilience.call(service, request, client.callTimeoutMillis(), blocking, (attempt, timeoutMillis) -> {
+            if (hedging.isEnabled(service)) {
+                // hedges run concurrently, a blocking caller waits for the winner
+                final CompletableFuture<Response> hedged = hedging.call(service, attempt, timeoutMillis,
+                        (hedge, hedgeTimeoutMillis) -> metrics.time(service, hedge, enqueue(newCall(client, hedge, hedgeTimeoutMillis))));
+                return blocking ? await(hedged) : hedged;
+            }
+            final Call call = newCall(client, attempt, timeoutMillis);
+            if (!blocking) {
+                return metrics.time(service, attempt, enqueue(call));
+            }
+            final long start = System.nanoTime();
+            try {
+                final Response response = call.execute();
+                metrics.record(service, attempt, response, start);
+                return CompletableFuture.completedFuture(response);
+            } catch (IOException e) {
+                metrics.record(service, attempt, null, start);
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    private static Call newCall(OkHttpClient client, Request request, long timeoutMillis) {
+        final Call call = client.newCall(request);
+        if (timeoutMillis > 0) {
+            // an attempt never outlives the deadline of the call
+            call.timeout().timeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return call;
+    }
+
+    private static CompletableFuture<Response> await(CompletableFuture<Response> response) {
+        try {
+            return CompletableFuture.completedFuture(response.get());
+        } catch (ExecutionException e) {
+            return CompletableFuture.failedFuture(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.cancel(true);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Cache of GET responses, shared by every schema
+     * @return
+     */
+    public UpstreamResponseCache responseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Circuit breakers and retry budgets of the services
+     * @return
+     */
+    public UpstreamResilience resilience() {
+        return resilience;
+    }
+
+    /**
+     * Hedging of slow GET calls
+     * @return
+     */
+    public UpstreamHedging hedging() {
+        return hedging;
+    }
+
+    /**
+     * Latency, status and size of the upstream calls
+     * @return
+     */
+    public UpstreamMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns true if data fetchers should return CompletableFuture
+     * @return
+     */
+    public boolean isAsync() {
+        return options.isAsync();
+    }
+
+    /**
+     * Returns true if GET data fetchers should batch calls with a DataLoader
+     * @return
+     */
+    public boolean isBatching() {
+        return options.isBatching();
+    }
+
+    /**
+     * Mapper shared by every data fetcher, ObjectMapper is thread safe once configured
+     * @return
+     */
+    public ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Forgets the client of an unregistered service, pooled connections are evicted when idle
+     * @param service
+     */
+    public void evict(String service) {
+        clients.remove(service);
+        responseCache.evict(service);
+        resilience.evict(service);
+        hedging.evict(service);
+    }
+
+    public void shutdown() {
+        rootClient.dispatcher().executorService().shutdown();
+        rootClient.connectionPool().evictAll();
+    }
+
+    private OkHttpClient newClient(String service) {
+        UpstreamOptions.Service overrides = Optional.ofNullable(options.getServices().get(service))
+                .orElseGet(UpstreamOptions.Service::new);
+        boolean http2 = Optional.ofNullable(overrides.getHttp2()).orElse(options.isHttp2());
+        log.info("upstream client for {} -- http2: {}", service, http2);
+        return rootClient.newBuilder()
+                .connectTimeout(timeout(overrides.getConnectTimeout(), options.getConnectTimeout()))
+                .readTimeout(timeout(overrides.getReadTimeout(), options.getReadTimeout()))
+                .writeTimeout(timeout(overrides.getWriteTimeout(), options.getWriteTimeout()))
+                .callTimeout(timeout(overrides.getCallTimeout(), options.getCallTimeout()))
+                .protocols(http2
+                        ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                        : Collections.singletonList(Protocol.HTTP_1_1))
+                .build();
+    }
+
+    private Duration timeout(Duration override, Duration defaultValue) {
+        return Optional.ofNullable(override).orElse(Optional.ofNullable(defaultValue).orElse(Duration.ZERO));
+    }
+}
@@ -0,0 +1,185 @@
+package com.ipl.graphql.schema;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hedged GET calls.
+ * When the first attempt of a GET has not answered after the latency percentile of its operation,
+ * an identical attempt is sent. The first successful response wins and the other attempt is cancelled.
+ * A budget shared by every service caps the extra calls.
+ */
+@Slf4j
+public class UpstreamHedging {
+    private final UpstreamOptions options;
+    private final MeterRegistry meterRegistry;
+    private final OperationStats operationStats = new OperationStats();
+    private final TokenBudget budget;
+
+    public UpstreamHedging(@NonNull UpstreamOptions options, @NonNull MeterRegistry meterRegistry) {
+        this.options = options;
+        this.meterRegistry = meterRegistry;
+        this.budget = new TokenBudget(options.getHedging().getBudgetRatio(), options.getHedging().getBudgetBurst());
+    }
+
+    /**
+     * Makes an attempt of a call, hedged when the service enables hedging and its operation latency is known.
+     * Attempts have to be non-blocking.
+     * @param service registered service name
+     * @param request
+     * @param timeoutMillis timeout of the attempt, 0 for the client timeout
+     * @param attempt makes one non-blocking attempt
+     * @return
+     */
+    public CompletableFuture<Response> call(String service, Request request, long timeoutMillis, UpstreamResilience.Attempt attempt) {
+        if (!isEnabled(service) || !"GET".equals(request.method())) {
+            return attempt.call(request, timeoutMillis);
+        }
+        final String operation = operation(service, request);
+        final UpstreamOptions.Hedging settings = settings(service);
+        budget.deposit();
+        final long start = System.nanoTime();
+        final CompletableFuture<Response> first = timed(operation, attempt.call(request, timeoutMillis));
+        if (operationStats.count(operation) < settings.getMinSamples()) {
+            return first;
+        }
+        final long delay = Math.max(settings.getMinDelay().toMillis(),
+                Math.round(operationStats.percentileMillis(operation, settings.getPercentile())));
+        final CompletableFuture<Response> result = new CompletableFuture<>();
+        final AtomicInteger pending = new AtomicInteger(1);
+        final AtomicBoolean settled = new AtomicBoolean();
+        race(result, first, pending, settled, service, false);
+        // the losing attempt is cancelled, a response it still gets is closed
+        result.whenComplete((response, e) -> first.cancel(true));
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone() || !budget.tryWithdraw()) {
+                return;
+            }
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (timeoutMillis > 0 && elapsed >= timeoutMillis) {
+                return;
+            }
+            // counted as pending before sending, so a failure of the first attempt now waits for the hedge
+            pending.incrementAndGet();
+            if (settled.get()) {
+                // the first attempt settled since the check above
+                pending.decrementAndGet();
+                return;
+            }
+            count(service, "hedged");
+            log.debug("hedging {} after {}ms", request.url(), delay);
+            final CompletableFuture<Response> hedge = timed(operation,
+                    attempt.call(request, timeoutMillis > 0 ? timeoutMillis - elapsed : 0));
+            race(result, hedge, pending, settled, service, true);
+            result.whenComplete((response, e) -> hedge.cancel(true));
+        });
+        return result;
+    }
+
+    /**
+     * Latency of the hedged operations, keyed by service and operation id
+     * @return
+     */
+    public OperationStats operationStats() {
+        return operationStats;
+    }
+
+    /**
+     * Forgets the latency of the operations of an unregistered service
+     * @param service
+     */
+    public void evict(String service) {
+        operationStats.evict(service + "/");
+    }
+
+    public boolean isEnabled(String service) {
+        return Boolean.TRUE.equals(settings(service).getEnabled());
+    }
+
+    /**
+     * Completes the result with the first successful response, a failure only wins once no attempt is pending.
+     * The winner is settled before the result completes, so the caller sees its meters.
+     */
+    private void race(CompletableFuture<Response> result, CompletableFuture<Response> attempt, AtomicInteger pending,
+                      AtomicBoolean settled, String service, boolean hedge) {
+        attempt.whenComplete((response, e) -> {
+            final boolean last = pending.decrementAndGet() == 0;
+            final boolean success = e == null && response.code() < 500;
+            if ((success || last) && settled.compareAndSet(false, true)) {
+                if (hedge && success) {
+                    count(service, "won");
+                }
+                final boolean won = e == null ? result.complete(response) : result.completeExceptionally(e);
+                if (!won && response != null) {
+                    // the caller cancelled the call
+                    response.close();
+                }
+            } else if (response != null) {
+                response.close();
+            }
+        });
+    }
+
+    /**
+     * Records the latency of an attempt before completing, cancelling the returned future cancels the attempt.
+     * A cancelled attempt, e.g. the slow one losing to its hedge, records its elapsed time as a lower bound,
+     * otherwise only the fast attempts would be sampled and the percentile would keep drifting down.
+     */
+    private CompletableFuture<Response> timed(String operation, CompletableFuture<Response> attempt) {
+        final long start = System.nanoTime();
+        final CompletableFuture<Response> timed = attempt.whenComplete((response, e) -> {
+            if (e == null && response.code() < 500) {
+                operationStats.record(operation, System.nanoTime() - start);
+            }
+        });
+        timed.whenComplete((response, e) -> {
+            if (timed.isCancelled()) {
+                operationStats.record(operation, System.nanoTime() - start);
+                attempt.cancel(true);
+            }
+        });
+        return timed;
+    }
+
+    private static String operation(String service, Request request) {
+        final String operation = InvocationPlan.operation(request);
+        return service + "/" + (operation != null ? operation : request.method() + " " + request.url().encodedPath());
+    }
+
+    private void count(String service, String event) {
+        Counter.builder("graphql.upstream.hedging")
+                .tag("service", service)
+                .tag("event", event)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Hedging settings of a service, falling back to the defaults
+     */
+    private UpstreamOptions.Hedging settings(String service) {
+        UpstreamOptions.Hedging defaults = options.getHedging();
+        UpstreamOptions.Hedging overrides = Optional.ofNullable(options.getServices().get(service))
+                .map(UpstreamOptions.Service::getHedging)
+                .orElse(null);
+        if (overrides == null) {
+            return defaults;
+        }
+        UpstreamOptions.Hedging settings = new UpstreamOptions.Hedging();
+        settings.setEnabled(Optional.ofNullable(overrides.getEnabled()).orElse(defaults.getEnabled()));
+        settings.setPercentile(Optional.ofNullable(overrides.getPercentile()).orElse(defaults.getPercentile()));
+        settings.setMinSamples(Optional.ofNullable(overrides.getMinSamples()).orElse(defaults.getMinSamples()));
+        settings.setMinDelay(Optional.ofNullable(overrides.getMinDelay()).orElse(defaults.getMinDelay()));
+        return settings;
+    }
+}
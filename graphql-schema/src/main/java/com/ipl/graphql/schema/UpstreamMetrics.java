@@ -0,0 +1,105 @@
+package com.ipl.graphql.schema;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.NonNull;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the upstream calls.
+ * Tags are limited to the registered service, the HTTP method and the status code, so the number of
+ * series stays bounded whatever the queries. Listeners are told about every call, e.g. to trace them.
+ */
+public class UpstreamMetrics {
+    /** Status tag of calls failing without a response. */
+    public static final String IO_ERROR = "IO_ERROR";
+
+    /**
+     * Notified of every upstream call once it completes
+     */
+    @FunctionalInterface
+    public interface CallListener {
+        /**
+         * @param service
+         * @param request
+         * @param response null when the call failed
+         * @param startNanos
+         * @param endNanos
+         */
+        void onCall(String service, Request request, Response response, long startNanos, long endNanos);
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final List<CallListener> listeners = new CopyOnWriteArrayList<>();
+
+    public UpstreamMetrics(@NonNull MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Records the latency, status and size of a call once it completes
+     * @param service
+     * @param request
+     * @param call
+     * @return the call
+     */
+    public CompletableFuture<Response> time(String service, Request request, CompletableFuture<Response> call) {
+        final long start = System.nanoTime();
+        call.whenComplete((response, e) -> record(service, request, response, start));
+        return call;
+    }
+
+    /**
+     * Records a call
+     * @param service
+     * @param request
+     * @param response null when the call failed
+     * @param startNanos
+     */
+    public void record(String service, Request request, Response response, long startNanos) {
+        final long endNanos = System.nanoTime();
+        Timer.builder("graphql.upstream.requests")
+                .tag("service", service)
+                .tag("method", request.method())
+                .tag("status", response == null ? IO_ERROR : String.valueOf(response.code()))
+                .register(meterRegistry)
+                .record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+        if (response != null && response.body() != null && response.body().contentLength() >= 0) {
+            DistributionSummary.builder("graphql.upstream.response.size")
+                    .baseUnit("bytes")
+                    .tag("service", service)
+                    .register(meterRegistry)
+                    .record(response.body().contentLength());
+        }
+        for (CallListener listener : listeners) {
+            listener.onCall(service, request, response, startNanos, endNanos);
+        }
+    }
+
+    /**
+     * Adds a listener of the upstream calls
+     * @param listener
+     */
+    public void addListener(@NonNull CallListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Records the time spent decoding a response body
+     * @param service
+     * @param nanos
+     */
+    public void recordDecode(String service, long nanos) {
+        Timer.builder("graphql.upstream.decode")
+                .tag("service", service)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
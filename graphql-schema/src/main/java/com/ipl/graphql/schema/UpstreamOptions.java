@@ -0,0 +1,157 @@
+package com.ipl.graphql.schema;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of the upstream HTTP client layer.
+ * Pool and dispatcher settings are shared by every service, timeouts can be overridden per service.
+ */
+@Data
+public class UpstreamOptions {
+    /** Idle keep-alive connections kept in the shared pool. */
+    private int maxIdleConnections = 64;
+    /** How long an idle connection is kept in the pool. */
+    private Duration keepAlive = Duration.ofMinutes(5);
+    /** Max concurrent calls across all services. */
+    private int maxRequests = 256;
+    /** Max concurrent calls to a single host. */
+    private int maxRequestsPerHost = 64;
+
+    /** Default timeouts, 0 means no timeout. */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(10);
+    private Duration writeTimeout = Duration.ofSeconds(10);
+    private Duration callTimeout = Duration.ofSeconds(30);
+    /** Negotiates HTTP/2 (ALPN) when the upstream supports it. */
+    private boolean http2 = true;
+    /** Data fetchers return CompletableFuture backed by non-blocking calls instead of blocking the caller. */
+    private boolean async = false;
+    /** GET calls to the same operation are collected per dispatch level with a DataLoader. */
+    private boolean batching = false;
+
+    /** Response cache of GET calls, shared across requests. */
+    private Cache cache = Cache.defaults();
+    /** Circuit breaker and retries of the calls to a service. */
+    private Resilience resilience = Resilience.defaults();
+    /** Hedging of slow GET calls. */
+    private Hedging hedging = Hedging.defaults();
+
+    /** Per service overrides, keyed by registered service name. */
+    private Map<String, Service> services = new HashMap<>();
+
+    /**
+     * Per service overrides, null values fall back to the defaults.
+     */
+    @Data
+    public static class Service {
+        private Duration connectTimeout;
+        private Duration readTimeout;
+        private Duration writeTimeout;
+        private Duration callTimeout;
+        private Boolean http2;
+        private Cache cache;
+        private Resilience resilience;
+        private Hedging hedging;
+    }
+
+    /**
+     * Response cache settings, per service null values fall back to the defaults.
+     */
+    @Data
+    public static class Cache {
+        private Boolean enabled;
+        /** Max cached responses per service. */
+        private Long maxEntries;
+        /** Upper bound of the freshness lifetime announced by the upstream. */
+        private Duration maxTtl;
+        /** How long a 404 is cached, 0 disables negative caching. */
+        private Duration negativeTtl;
+
+        static Cache defaults() {
+            Cache cache = new Cache();
+            cache.setEnabled(false);
+            cache.setMaxEntries(1000L);
+            cache.setMaxTtl(Duration.ofMinutes(10));
+            cache.setNegativeTtl(Duration.ofSeconds(5));
+            return cache;
+        }
+    }
+
+    /**
+     * Circuit breaker and retry settings, per service null values fall back to the defaults.
+     * The call timeout is the deadline of a call including its retries.
+     */
+    @Data
+    public static class Resilience {
+        private Boolean enabled;
+        /** Last calls the failure rate is computed on. */
+        private Integer windowSize;
+        /** Calls in the window before the breaker may open. */
+        private Integer minimumCalls;
+        /** Failure rate, between 0 and 1, opening the breaker. */
+        private Double failureRateThreshold;
+        /** How long an open breaker fails fast before letting trial calls through. */
+        private Duration openDuration;
+        /** Trial calls that have to succeed to close the breaker. */
+        private Integer halfOpenCalls;
+        /** Max retries of a failed GET, 0 disables retries. */
+        private Integer maxRetries;
+        /** Retries allowed per call, e.g. 0.1 allows one retry every 10 calls. */
+        private Double retryRatio;
+        /** Retries that can be spent at once, the budget refills with the calls. */
+        private Integer retryBurst;
+        /** Upper bound of the first retry delay, doubled per retry, the actual delay is random. */
+        private Duration retryBackoff;
+        private Duration maxRetryBackoff;
+
+        static Resilience defaults() {
+            Resilience resilience = new Resilience();
+            resilience.setEnabled(true);
+            resilience.setWindowSize(50);
+            resilience.setMinimumCalls(20);
+            resilience.setFailureRateThreshold(0.5);
+            resilience.setOpenDuration(Duration.ofSeconds(30));
+            resilience.setHalfOpenCalls(3);
+            resilience.setMaxRetries(2);
+            resilience.setRetryRatio(0.1);
+            resilience.setRetryBurst(10);
+            resilience.setRetryBackoff(Duration.ofMillis(50));
+            resilience.setMaxRetryBackoff(Duration.ofSeconds(1));
+            return resilience;
+        }
+    }
+
+    /**
+     * Hedging settings, per service null values fall back to the defaults.
+     * The budget is shared by every service.
+     */
+    @Data
+    public static class Hedging {
+        private Boolean enabled;
+        /** Latency percentile of an operation after which a GET is hedged, between 0 and 1. */
+        private Double percentile;
+        /** Calls of an operation measured before it is hedged. */
+        private Integer minSamples;
+        /** Lower bound of the hedging delay. */
+        private Duration minDelay;
+        /** Hedges allowed per hedgeable call, e.g. 0.05 caps the extra load to 5%. */
+        private Double budgetRatio;
+        /** Hedges that can be spent at once, the budget refills with the calls. */
+        private Integer budgetBurst;
+
+        static Hedging defaults() {
+            Hedging hedging = new Hedging();
+            hedging.setEnabled(false);
+            hedging.setPercentile(0.95);
+            hedging.setMinSamples(20);
+            hedging.setMinDelay(Duration.ofMillis(10));
+            hedging.setBudgetRatio(0.05);
+            hedging.setBudgetBurst(10);
+            return hedging;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.ipl.graphql.schema;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breakers and retry budgets of the upstream services.
+ * Calls to a service with an open breaker fail fast. Failed GET calls are retried after a random
+ * exponential delay, as long as the service retry budget and the call deadline allow it, so retries
+ * never multiply the load of a struggling service.
+ */
+@Slf4j
+public class UpstreamResilience {
+
+    /**
+     * Makes one attempt of a call
+     */
+    @FunctionalInterface
+    public interface Attempt {
+        /**
+         * @param request
+         * @param timeoutMillis time left before the deadline of the call, 0 for the client timeout
+         * @return
+         */
+        CompletableFuture<Response> call(Request request, long timeoutMillis);
+    }
+
+    private final UpstreamOptions options;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TokenBudget> budgets = new ConcurrentHashMap<>();
+
+    public UpstreamResilience(@NonNull UpstreamOptions options, @NonNull MeterRegistry meterRegistry) {
+        this.options = options;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Calls a service through its circuit breaker, retrying failed GET calls
+     * @param service registered service name
+     * @param request
+     * @param deadlineMillis deadline of the call including its retries, 0 for none
+     * @param blocking true when attempts complete on the caller thread, retries then wait on it too
+     * @param attempt makes one attempt
+     * @return the response of the last attempt
+     */
+    public CompletableFuture<Response> call(String service, Request request, long deadlineMillis, boolean blocking,
+                                            Attempt attempt) {
+        final UpstreamOptions.Resilience settings = settings(service);
+        if (!Boolean.TRUE.equals(settings.getEnabled())) {
+            return attempt.call(request, 0);
+        }
+        final long deadline = deadlineMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis) : 0;
+        budget(service).deposit();
+        final CompletableFuture<Response> result = new CompletableFuture<>();
+        attempt(service, settings, request, deadline, blocking, attempt, 0, result);
+        return result;
+    }
+
+    /**
+     * Circuit breaker of a service, created on first call
+     * @param service
+     * @return
+     */
+    public CircuitBreaker breaker(String service) {
+        return breakers.computeIfAbsent(service, name -> {
+            final UpstreamOptions.Resilience settings = settings(name);
+            return new CircuitBreaker(settings.getWindowSize(), settings.getMinimumCalls(), settings.getFailureRateThreshold(),
+                    settings.getOpenDuration().toMillis(), settings.getHalfOpenCalls());
+        });
+    }
+
+    /**
+     * Circuit breakers of the services called so far
+     * @return
+     */
+    public Map<String, CircuitBreaker> breakers() {
+        return Collections.unmodifiableMap(breakers);
+    }
+
+    /**
+     * Retries a service can spend right now
+     * @param service
+     * @return
+     */
+    public double retryBalance(String service) {
+        return budget(service).balance();
+    }
+
+    /**
+     * Forgets the breaker and budget of an unregistered service
+     * @param service
+     */
+    public void evict(String service) {
+        breakers.remove(service);
+        budgets.remove(service);
+    }
+
+    private void attempt(String service, UpstreamOptions.Resilience settings, Request request, long deadline, boolean blocking,
+                         Attempt attempt, int retry, CompletableFuture<Response> result) {
+        final long timeout = deadline == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (deadline != 0 && timeout <= 0) {
+            result.completeExceptionally(new InterruptedIOException("Deadline of " + request.url() + " exceeded"));
+            return;
+        }
+        final CircuitBreaker breaker = breaker(service);
+        if (!breaker.tryAcquire()) {
+            count(service, "rejected");
+            result.completeExceptionally(new CircuitBreaker.OpenException(service));
+            return;
+        }
+        attempt.call(request, timeout).whenComplete((response, e) -> {
+            final boolean failed = e != null || response.code() >= 500;
+            if (failed) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            final long delay = backoff(settings, retry);
+            final boolean retried = failed && retryable(request, response, e)
+                    && retry < settings.getMaxRetries()
+                    && (deadline == 0 || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) < deadline)
+                    && budget(service).tryWithdraw();
+            if (!retried) {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(response);
+                }
+                return;
+            }
+            if (response != null) {
+                response.close();
+            }
+            count(service, "retry");
+            log.debug("retry {} of {} in {}ms -- {}", retry + 1, request.url(), delay, e != null ? e.getMessage() : response.code());
+            if (blocking) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    result.completeExceptionally(interrupted);
+                    return;
+                }
+                attempt(service, settings, request, deadline, true, attempt, retry + 1, result);
+            } else {
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                        .execute(() -> attempt(service, settings, request, deadline, false, attempt, retry + 1, result));
+            }
+        });
+    }
+
+    /**
+     * Only idempotent GET calls are retried, after a transport failure or a gateway error
+     */
+    private static boolean retryable(Request request, Response response, Throwable e) {
+        if (!"GET".equals(request.method())) {
+            return false;
+        }
+        if (e != null) {
+            return !(e instanceof CircuitBreaker.OpenException);
+        }
+        return response.code() == 502 || response.code() == 503 || response.code() == 504;
+    }
+
+    /**
+     * Full jitter: a random delay up to the exponential backoff
+     */
+    private static long backoff(UpstreamOptions.Resilience settings, int retry) {
+        final long ceiling = Math.min(settings.getMaxRetryBackoff().toMillis(), settings.getRetryBackoff().toMillis() << Math.min(retry, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private TokenBudget budget(String service) {
+        return budgets.computeIfAbsent(service, name -> {
+            final UpstreamOptions.Resilience settings = settings(name);
+            return new TokenBudget(settings.getRetryRatio(), settings.getRetryBurst());
+        });
+    }
+
+    private void count(String service, String event) {
+        Counter.builder("graphql.upstream.resilience")
+                .tag("service", service)
+                .tag("event", event)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Resilience settings of a service, falling back to the defaults
+     */
+    private UpstreamOptions.Resilience settings(String service) {
+        UpstreamOptions.Resilience defaults = options.getResilience();
+        UpstreamOptions.Resilience overrides = Optional.ofNullable(options.getServices().get(service))
+                .map(UpstreamOptions.Service::getResilience)
+                .orElse(null);
+        if (overrides == null) {
+            return defaults;
+        }
+        UpstreamOptions.Resilience settings = new UpstreamOptions.Resilience();
+        settings.setEnabled(Optional.ofNullable(overrides.getEnabled()).orElse(defaults.getEnabled()));
+        settings.setWindowSize(Optional.ofNullable(overrides.getWindowSize()).orElse(defaults.getWindowSize()));
+        settings.setMinimumCalls(Optional.ofNullable(overrides.getMinimumCalls()).orElse(defaults.getMinimumCalls()));
+        settings.setFailureRateThreshold(Optional.ofNullable(overrides.getFailureRateThreshold()).orElse(defaults.getFailureRateThreshold()));
+        settings.setOpenDuration(Optional.ofNullable(overrides.getOpenDuration()).orElse(defaults.getOpenDuration()));
+        settings.setHalfOpenCalls(Optional.ofNullable(overrides.getHalfOpenCalls()).orElse(defaults.getHalfOpenCalls()));
+        settings.setMaxRetries(Optional.ofNullable(overrides.getMaxRetries()).orElse(defaults.getMaxRetries()));
+        settings.setRetryRatio(Optional.ofNullable(overrides.getRetryRatio()).orElse(defaults.getRetryRatio()));
+        settings.setRetryBurst(Optional.ofNullable(overrides.getRetryBurst()).orElse(defaults.getRetryBurst()));
+        settings.setRetryBackoff(Optional.ofNullable(overrides.getRetryBackoff()).orElse(defaults.getRetryBackoff()));
+        settings.setMaxRetryBackoff(Optional.ofNullable(overrides.getMaxRetryBackoff()).orElse(defaults.getMaxRetryBackoff()));
+        return settings;
+    }
+}
@@ -0,0 +1,364 @@
+package com.ipl.graphql.schema;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.CacheControl;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of decoded upstream GET responses, shared across requests and bounded per service.
+ * Freshness follows the upstream Cache-Control (max-age, s-maxage, no-store, private,
+ * stale-while-revalidate), Age and Expires headers, responses varying on request headers are
+ * keyed by the values of those headers, and 404 responses are cached for a short time.
+ * Expired responses carrying ETag or Last-Modified are revalidated with a conditional request,
+ * a 304 reuses the decoded body.
+ */
+@Slf4j
+public class UpstreamResponseCache {
+    private static final Pattern STALE_WHILE_REVALIDATE = Pattern.compile("stale-while-revalidate=(\\d+)");
+
+    private final UpstreamOptions options;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, ServiceCache> caches = new ConcurrentHashMap<>();
+
+    public UpstreamResponseCache(@NonNull UpstreamOptions options, @NonNull MeterRegistry meterRegistry) {
+        this.options = options;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns true if the responses of a service are cached
+     * @param service
+     * @return
+     */
+    public boolean isEnabled(String service) {
+        return Boolean.TRUE.equals(settings(service).getEnabled());
+    }
+
+    /**
+     * Returns the cached body of a GET request or calls the upstream and caches its response
+     * @param service registered service name
+     * @param request GET request
+     * @param call calls the upstream
+     * @param refresh calls the upstream without blocking the caller, to revalidate a stale response
+     * @param decoder decodes a successful response
+     * @return decoded body, null when the upstream did not answer with a success
+     */
+    public CompletableFuture<Object> get(String service, Request request,
+                                         Function<Request, CompletableFuture<Response>> call,
+                                         Function<Request, CompletableFuture<Response>> refresh,
+                                         Function<Response, Object> decoder) {
+        final ServiceCache cache = cache(service);
+        final String url = request.url().toString();
+        // every combination of the varied header values is an entry of its own
+        final String key = Vary.key(url, cache.varies.getIfPresent(url), request);
+        final Entry entry = cache.entries.getIfPresent(key);
+        final long now = System.currentTimeMillis();
+        if (entry != null && entry.matches(request)) {
+            if (now < entry.freshUntil) {
+                count(service, entry.negative ? "negative" : "hit");
+                return CompletableFuture.completedFuture(entry.body);
+            }
+            if (now < entry.staleUntil) {
+                // serve the stale body, a single background call refreshes the entry
+                count(service, "stale");
+                if (entry.revalidating.compareAndSet(false, true)) {
+                    refresh.apply(entry.conditional(request)).whenComplete((response, e) -> {
+                        try {
+                            if (e != null) {
+                                log.debug("revalidation of {} failed", url, e);
+                            } else {
+                                store(service, key, request, entry, response, decoder);
+                            }
+                        } catch (RuntimeException decoding) {
+                            log.debug("revalidation of {} failed", url, decoding);
+                        } finally {
+                            // an entry that was not replaced, e.g. on an error or a 404 not stored, is refreshed again
+                            entry.revalidating.set(false);
+                        }
+                    });
+                }
+                return CompletableFuture.completedFuture(entry.body);
+            }
+            if (entry.hasValidators()) {
+                // If-None-Match / If-Modified-Since, a 304 reuses the decoded body
+                count(service, "revalidate");
+                return call.apply(entry.conditional(request))
+                        .thenApply(response -> store(service, key, request, entry, response, decoder));
+            }
+        }
+        count(service, "miss");
+        return call.apply(request).thenApply(response -> store(service, key, request, null, response, decoder));
+    }
+
+    /**
+     * Drops the cached responses of a service
+     * @param service
+     */
+    public void evict(String service) {
+        Optional.ofNullable(caches.get(service)).ifPresent(cache -> {
+            cache.entries.invalidateAll();
+            cache.varies.invalidateAll();
+        });
+    }
+
+    /**
+     * @param key entry the request was looked up with, dropped when the response cannot be stored
+     */
+    private Object store(String service, String key, Request request, Entry previous, Response response, Function<Response, Object> decoder) {
+        final CacheControl cacheControl = response.cacheControl();
+        final Vary vary = Vary.of(request, response);
+        final boolean storable = !cacheControl.noStore() && !cacheControl.isPrivate() && vary != null;
+        final ServiceCache cache = cache(service);
+        if (response.code() == 304 && previous != null) {
+            // not modified, neither the body is transferred nor decoded again
+            response.close();
+            count(service, "not-modified");
+            cache.entries.put(key, new Entry(previous.body, false, freshness(service, response, cacheControl),
+                    staleWhileRevalidate(response), previous.vary,
+                    Optional.ofNullable(response.header("ETag")).orElse(previous.etag),
+                    Optional.ofNullable(response.header("Last-Modified")).orElse(previous.lastModified)));
+            return previous.body;
+        }
+        if (response.code() == 404) {
+            response.close();
+            long negativeTtl = settings(service).getNegativeTtl().toMillis();
+            if (storable && negativeTtl > 0) {
+                cache.put(request, new Entry(null, true, negativeTtl, 0, vary, null, null));
+            }
+            return null;
+        }
+        final String etag = response.header("ETag");
+        final String lastModified = response.header("Last-Modified");
+        final Object body = decoder.apply(response);
+        final long ttl = storable && response.isSuccessful() ? freshness(service, response, cacheControl) : 0;
+        final long staleWhileRevalidate = staleWhileRevalidate(response);
+        if (storable && response.isSuccessful() && (ttl > 0 || staleWhileRevalidate > 0 || etag != null || lastModified != null)) {
+            cache.put(request, new Entry(body, false, ttl, staleWhileRevalidate, vary, etag, lastModified));
+        } else {
+            cache.entries.invalidate(key);
+        }
+        return body;
+    }
+
+    /**
+     * Freshness lifetime in millis, s-maxage wins over max-age which wins over Expires.
+     * The Age of a response served by a shared cache upstream is deducted.
+     */
+    private long freshness(String service, Response response, CacheControl cacheControl) {
+        long ttl = 0;
+        if (cacheControl.noCache()) {
+            ttl = 0;
+        } else if (cacheControl.sMaxAgeSeconds() >= 0) {
+            ttl = TimeUnit.SECONDS.toMillis(cacheControl.sMaxAgeSeconds());
+        } else if (cacheControl.maxAgeSeconds() >= 0) {
+            ttl = TimeUnit.SECONDS.toMillis(cacheControl.maxAgeSeconds());
+        } else if (response.headers().getDate("Expires") != null) {
+            Date expires = response.headers().getDate("Expires");
+            Date date = Optional.ofNullable(response.headers().getDate("Date")).orElseGet(Date::new);
+            ttl = expires.getTime() - date.getTime();
+        }
+        ttl -= TimeUnit.SECONDS.toMillis(age(response));
+        return Math.max(0, Math.min(ttl, settings(service).getMaxTtl().toMillis()));
+    }
+
+    private static long age(Response response) {
+        try {
+            return Math.max(0, Long.parseLong(Optional.ofNullable(response.header("Age")).orElse("0").trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private long staleWhileRevalidate(Response response) {
+        for (String value : response.headers("Cache-Control")) {
+            Matcher matcher = STALE_WHILE_REVALIDATE.matcher(value);
+            if (matcher.find()) {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(matcher.group(1)));
+            }
+        }
+        return 0;
+    }
+
+    private ServiceCache cache(String service) {
+        return caches.computeIfAbsent(service, name -> {
+            ServiceCache cache = new ServiceCache(settings(name).getMaxEntries());
+            Gauge.builder("graphql.upstream.cache.size", cache.entries, Cache::size)
+                    .tag("service", name)
+                    .register(meterRegistry);
+            return cache;
+        });
+    }
+
+    private void count(String service, String result) {
+        Counter.builder("graphql.upstream.cache")
+                .tag("service", service)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Cache settings of a service, falling back to the defaults
+     */
+    private UpstreamOptions.Cache settings(String service) {
+        UpstreamOptions.Cache defaults = options.getCache();
+        UpstreamOptions.Cache overrides = Optional.ofNullable(options.getServices().get(service))
+                .map(UpstreamOptions.Service::getCache)
+                .orElse(null);
+        if (overrides == null) {
+            return defaults;
+        }
+        UpstreamOptions.Cache settings = new UpstreamOptions.Cache();
+        settings.setEnabled(Optional.ofNullable(overrides.getEnabled()).orElse(defaults.getEnabled()));
+        settings.setMaxEntries(Optional.ofNullable(overrides.getMaxEntries()).orElse(defaults.getMaxEntries()));
+        settings.setMaxTtl(Optional.ofNullable(overrides.getMaxTtl()).orElse(defaults.getMaxTtl()));
+        settings.setNegativeTtl(Optional.ofNullable(overrides.getNegativeTtl()).orElse(defaults.getNegativeTtl()));
+        return settings;
+    }
+
+    /**
+     * Cached responses of a service, with the request headers the responses of each URL vary on
+     */
+    private static class ServiceCache {
+        private final Cache<String, Entry> entries;
+        private final Cache<String, List<String>> varies;
+
+        ServiceCache(long maxEntries) {
+            this.entries = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+            this.varies = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+        }
+
+        /**
+         * Stores an entry under the values of the headers its response varies on
+         */
+        void put(Request request, Entry entry) {
+            final String url = request.url().toString();
+            if (entry.vary.names().isEmpty()) {
+                varies.invalidate(url);
+            } else {
+                varies.put(url, entry.vary.names());
+            }
+            entries.put(Vary.key(url, entry.vary.names(), request), entry);
+        }
+    }
+
+    /**
+     * Cached response, kept after it expires while it has validators to revalidate it
+     */
+    private static class Entry {
+        private final Object body;
+        private final boolean negative;
+        private final long freshUntil;
+        private final long staleUntil;
+        private final Vary vary;
+        private final String etag;
+        private final String lastModified;
+        private final AtomicBoolean revalidating = new AtomicBoolean();
+
+        Entry(Object body, boolean negative, long ttl, long staleWhileRevalidate, Vary vary, String etag, String lastModified) {
+            this.body = body;
+            this.negative = negative;
+            this.freshUntil = System.currentTimeMillis() + ttl;
+            this.staleUntil = freshUntil + staleWhileRevalidate;
+            this.vary = vary;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        boolean matches(Request request) {
+            return vary.matches(request);
+        }
+
+        boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+
+        /**
+         * Adds the validators of this entry to a request
+         */
+        Request conditional(Request request) {
+            Request.Builder builder = request.newBuilder();
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * Request header values a response varies on
+     */
+    private static class Vary {
+        private final SortedMap<String, List<String>> headers;
+
+        private Vary(SortedMap<String, List<String>> headers) {
+            this.headers = headers;
+        }
+
+        /**
+         * @return null if the response varies on every request (Vary: *)
+         */
+        static Vary of(Request request, Response response) {
+            SortedMap<String, List<String>> headers = new TreeMap<>();
+            for (String value : response.headers("Vary")) {
+                for (String name : value.split(",")) {
+                    String header = name.trim().toLowerCase(Locale.ROOT);
+                    if (header.equals("*")) {
+                        return null;
+                    }
+                    if (!header.isEmpty()) {
+                        headers.put(header, request.headers(header));
+                    }
+                }
+            }
+            return new Vary(headers);
+        }
+
+        boolean matches(Request request) {
+            return headers.entrySet().stream()
+                    .allMatch(header -> header.getValue().equals(request.headers(header.getKey())));
+        }
+
+        /**
+         * Names of the varied headers, lower case and sorted
+         */
+        List<String> names() {
+            return new ArrayList<>(headers.keySet());
+        }
+
+        /**
+         * Cache key of a request, its URL followed by the values of the varied headers
+         * @param names varied headers, null when the responses of the URL do not vary
+         */
+        static String key(String url, List<String> names, Request request) {
+            if (names == null || names.isEmpty()) {
+                return url;
+            }
+            final StringBuilder key = new StringBuilder(url);
+            for (String name : names) {
+                key.append('\n').append(name).append('=').append(String.join(",", request.headers(name)));
+            }
+            return key.toString();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ipl.graphql.schema.FieldProjection;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FieldProjectionTest {
+    private static final String SDL = "type Query { makes: [Make] }"
+            + " type Make { id: ID name: String country: Country models: [String] }"
+            + " type Country { code: String name: String }";
+    private static final String JSON = "[{\"id\": 1, \"name\": \"bmw\", \"models\": [\"x5\", \"m3\"],"
+            + " \"country\": {\"code\": \"de\", \"name\": \"Germany\", \"eu\": true}, \"logo\": {\"png\": \"...\"}}]";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void read_has_to_keep_only_the_selected_properties() throws IOException {
+    // Given
+        final FieldProjection projection = projection("{ makes { name alias: name country { code } } }");
+
+    // When
+        final Object makes = read(projection);
+
+    // Then
+        assertEquals("{country={code=*}, name=*}", projection.fingerprint());
+        assertEquals(List.of(Map.of("name", "bmw", "country", Map.of("code", "de"))), makes);
+    }
+
+    @Test
+    public void read_has_to_keep_scalar_lists_and_merge_aliases() throws IOException {
+    // Given
+        final FieldProjection projection = projection("{ makes { models a: country { code } b: country { name } } }");
+
+    // When
+        final Object makes = read(projection);
+
+    // Then
+        assertEquals(List.of(Map.of("models", List.of("x5", "m3"), "country", Map.of("code", "de", "name", "Germany"))), makes);
+        assertEquals(objectMapper.readValue(JSON, Object.class), read(FieldProjection.ALL));
+    }
+
+    private Object read(FieldProjection projection) throws IOException {
+        return projection.read(objectMapper, new ByteArrayInputStream(JSON.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static FieldProjection projection(String query) {
+        final AtomicReference<FieldProjection> projection = new AtomicReference<>();
+        final GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL),
+                RuntimeWiring.newRuntimeWiring().type("Query", type -> type.dataFetcher("makes", env -> {
+                    projection.set(FieldProjection.of(env.getSelectionSet()));
+                    return Collections.emptyList();
+                })).build());
+        GraphQL.newGraphQL(schema).build().execute(query);
+        return projection.get();
+    }
+}
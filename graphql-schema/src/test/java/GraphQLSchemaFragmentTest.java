@@ -0,0 +1,77 @@
+import com.ipl.graphql.schema.GraphQLSchemaBuilder;
+import com.ipl.graphql.schema.GraphQLSchemaFragment;
+import com.ipl.graphql.schema.OpenApiGraphQLSchemaBuilder;
+import graphql.schema.GraphQLNamedSchemaElement;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLSchema;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class GraphQLSchemaFragmentTest {
+    private static final String LISTING_LOCATION = "src/test/resources/listing-openapi.json";
+    private static final String USERS_LOCATION = "src/test/resources/users-openapi.json";
+
+    @Test
+    public void fragments_have_to_be_reused_between_schema_builds() {
+    // Given
+        final OpenApiGraphQLSchemaBuilder converter = new OpenApiGraphQLSchemaBuilder();
+        final OpenAPI listing = new OpenAPIV3Parser().read(LISTING_LOCATION);
+        final OpenAPI users = new OpenAPIV3Parser().read(USERS_LOCATION);
+        final GraphQLSchemaFragment listingFragment = converter.fragment("ListingService", listing);
+        final GraphQLSchemaFragment usersFragment = converter.fragment("UserService", users);
+
+    // When
+        final GraphQLSchema both = new GraphQLSchemaBuilder()
+                .fragments(Arrays.asList(listingFragment, usersFragment))
+                .build();
+        final GraphQLSchema listingOnly = new GraphQLSchemaBuilder()
+                .fragments(Collections.singletonList(listingFragment))
+                .build();
+
+    // Then
+        assertNotNull(both.getQueryType().getFieldDefinition("getMakes"));
+        assertNotNull(both.getQueryType().getFieldDefinition("getUserById"));
+        assertNotNull(listingOnly.getQueryType().getFieldDefinition("getMakes"));
+        assertNull(listingOnly.getQueryType().getFieldDefinition("getUserById"));
+        assertSame(both.getQueryType().getFieldDefinition("getMakes"),
+                listingOnly.getQueryType().getFieldDefinition("getMakes"));
+        final String type = listingFragment.getObjectTypes().get(0).getName();
+        assertEquals(type, ((GraphQLObjectType) listingOnly.getType(type)).getName());
+    }
+
+    @Test
+    public void parallel_conversion_has_to_be_deterministic() {
+    // Given
+        final OpenAPI listing = new OpenAPIV3Parser().read(LISTING_LOCATION);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+
+    // When
+        final GraphQLSchemaFragment sequential = new OpenApiGraphQLSchemaBuilder().fragment("ListingService", listing);
+        final GraphQLSchemaFragment parallel = new OpenApiGraphQLSchemaBuilder().parallel(pool).fragment("ListingService", listing);
+        pool.shutdown();
+
+    // Then
+        assertEquals(names(sequential.getObjectTypes()), names(parallel.getObjectTypes()));
+        assertEquals(names(sequential.getInputObjectTypes()), names(parallel.getInputObjectTypes()));
+        assertEquals(names(sequential.getQueryFields()), names(parallel.getQueryFields()));
+        assertEquals(names(sequential.getMutationFields()), names(parallel.getMutationFields()));
+        assertEquals(new ArrayList<>(sequential.getDataFetchers().keySet()), new ArrayList<>(parallel.getDataFetchers().keySet()));
+    }
+
+    private static List<String> names(List<? extends GraphQLNamedSchemaElement> elements) {
+        return elements.stream().map(GraphQLNamedSchemaElement::getName).collect(Collectors.toList());
+    }
+}
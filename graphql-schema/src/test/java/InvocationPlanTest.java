@@ -0,0 +1,62 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ipl.graphql.schema.InvocationPlan;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import okhttp3.Request;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class InvocationPlanTest {
+    private static final List<Parameter> PARAMETERS = Arrays.asList(
+            new Parameter().in("path").name("model").schema(new StringSchema()),
+            new Parameter().in("path").name("make").schema(new StringSchema()._default("bmw")),
+            new Parameter().in("query").name("color").schema(new StringSchema()),
+            new Parameter().in("query").name("year").schema(new StringSchema()));
+
+    @Test
+    public void request_has_to_bind_path_and_query_parameters() {
+    // Given
+        final InvocationPlan plan = InvocationPlan.compile("http://localhost/makes/{make}/models/{model}",
+                PathItem.HttpMethod.GET, PARAMETERS, new ObjectMapper());
+        final Map<String, Object> arguments = new HashMap<>();
+        arguments.put("model", "x5");
+        arguments.put("color", Arrays.asList("black", "dark blue"));
+
+    // When
+        final Request request = plan.request(arguments, "trace");
+
+    // Then
+        assertEquals("http://localhost/makes/bmw/models/x5?color=black%2Cdark+blue", request.url().toString());
+        assertEquals("trace", request.header("TraceId"));
+        assertNull(request.body());
+    }
+
+    @Test
+    public void request_has_to_send_the_input_of_mutations() throws IOException {
+    // Given
+        final InvocationPlan plan = InvocationPlan.compile("http://localhost/makes", PathItem.HttpMethod.POST, null,
+                new ObjectMapper());
+        final Map<String, Object> arguments = new HashMap<>();
+        arguments.put("input", Map.of("name", "bmw"));
+
+    // When
+        final Request request = plan.request(arguments, "trace");
+        final Buffer body = new Buffer();
+        request.body().writeTo(body);
+
+    // Then
+        assertEquals("POST", request.method());
+        assertEquals("{\"name\":\"bmw\"}", body.readUtf8());
+        assertEquals("application/json; charset=utf-8", request.body().contentType().toString());
+    }
+}
@@ -0,0 +1,148 @@
+import com.ipl.graphql.schema.OpenApiGraphQLSchemaBuilder;
+import com.ipl.graphql.schema.UpstreamCallMemo;
+import com.ipl.graphql.schema.UpstreamClients;
+import com.ipl.graphql.schema.UpstreamOptions;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLContext;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.servers.Server;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OpenApiDataFetcherTest {
+    private static final String OPENAPI_LOCATION = "src/test/resources/listing-openapi.json";
+
+    private MockWebServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                final String item = "{\"id\": 1, \"name\": \"" + request.getPath() + "\"}";
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/json")
+                        .setBody(request.getPath().matches(".*/[0-9]+") ? item : "[" + item + "]")
+                        .setBodyDelay(300, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void async_fetchers_have_to_fetch_sibling_fields_concurrently() {
+    // Given
+        final UpstreamOptions options = new UpstreamOptions();
+        options.setAsync(true);
+        final GraphQL graphQL = graphQL(new UpstreamClients(options));
+
+    // When
+        final long start = System.nanoTime();
+        final ExecutionResult result = graphQL.execute("{ getMakes { name } getModels { id } getVehicles { id }"
+                + " getFeatures { id } getFeatureCategories { id } getEngineFeatures { id } }");
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // Then
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        assertEquals("/listing/makes", name(result, "getMakes"));
+        assertEquals(6, server.getRequestCount());
+        assertTrue(elapsed < 6 * 300, "6 calls of 300ms took " + elapsed + "ms");
+    }
+
+    @Test
+    public void sync_fetchers_have_to_return_decoded_response() {
+    // Given
+        final GraphQL graphQL = graphQL(new UpstreamClients());
+
+    // When
+        final ExecutionResult result = graphQL.execute("{ getMakes { id name } }");
+
+    // Then
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        assertEquals("/listing/makes", name(result, "getMakes"));
+    }
+
+    @Test
+    public void identical_calls_have_to_be_memoized_per_execution() {
+    // Given
+        final GraphQL graphQL = graphQL(new UpstreamClients());
+        final GraphQLContext context = GraphQLContext.newContext().build();
+        UpstreamCallMemo.attach(context);
+
+    // When
+        final ExecutionResult result = graphQL.execute(ExecutionInput.newExecutionInput()
+                .query("{ a: findMakeById(id: 1) { name } b: findMakeById(id: 1) { name } c: findMakeById(id: 1) { id }"
+                        + " d: findMakeById(id: 2) { name } }")
+                .context(context));
+
+    // Then
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        final Map<String, Map<String, Object>> data = result.getData();
+        assertEquals("/listing/makes/1", data.get("a").get("name"));
+        assertEquals("/listing/makes/1", data.get("b").get("name"));
+        assertEquals("1", data.get("c").get("id"));
+        assertEquals("/listing/makes/2", data.get("d").get("name"));
+        // another selection of the same call decodes its own properties from its own request
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void selected_fields_have_to_be_pushed_down_to_the_upstream() {
+    // Given
+        final OpenAPI openAPI = openAPI();
+        openAPI.getPaths().get("/models").getGet()
+                .addParametersItem(new Parameter().in("query").name("fields").schema(new StringSchema()))
+                .addExtension(OpenApiGraphQLSchemaBuilder.FIELDS_EXTENSION, Map.of("parameter", "fields"));
+        final GraphQL graphQL = GraphQL.newGraphQL(new OpenApiGraphQLSchemaBuilder(new UpstreamClients())
+                .openapi("ListingService", openAPI).build()).build();
+
+    // When
+        final ExecutionResult result = graphQL.execute("{ getModels { name id } getMakes { id name } }");
+
+    // Then
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        assertEquals("/listing/models?fields=id%2Cname", name(result, "getModels"));
+        assertEquals("/listing/makes", name(result, "getMakes"));
+    }
+
+    private GraphQL graphQL(UpstreamClients upstreamClients) {
+        return GraphQL.newGraphQL(new OpenApiGraphQLSchemaBuilder(upstreamClients).openapi("ListingService", openAPI()).build()).build();
+    }
+
+    private OpenAPI openAPI() {
+        final OpenAPI openAPI = new OpenAPIV3Parser().read(OPENAPI_LOCATION);
+        openAPI.setServers(Collections.singletonList(new Server().url(server.url("/listing").toString())));
+        return openAPI;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object name(ExecutionResult result, String field) {
+        final Map<String, Object> data = result.getData();
+        return ((List<Map<String, Object>>) data.get(field)).get(0).get("name");
+    }
+}
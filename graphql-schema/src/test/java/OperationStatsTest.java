@@ -0,0 +1,49 @@
+import com.ipl.graphql.schema.OperationStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OperationStatsTest {
+
+    @Test
+    public void percentiles_have_to_follow_the_recent_calls() {
+    // Given
+        final OperationStats stats = new OperationStats();
+
+    // When
+        for (int i = 1; i <= 100; i++) {
+            stats.record("Query.getMakes", TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+    // Then
+        assertEquals(100, stats.count("Query.getMakes"));
+        assertEquals(95.0, stats.percentileMillis("Query.getMakes", 0.95));
+        assertEquals(50.0, stats.percentileMillis("Query.getMakes", 0.5));
+        assertEquals(0.0, stats.meanMillis("Query.getModels"));
+    }
+
+    @Test
+    public void percentiles_have_to_be_cached_between_refreshes() {
+    // Given
+        final OperationStats stats = new OperationStats();
+        for (int i = 1; i <= 100; i++) {
+            stats.record("Query.getMakes", TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(95.0, stats.percentileMillis("Query.getMakes", 0.95));
+
+    // When
+        for (int i = 0; i < 10; i++) {
+            stats.record("Query.getMakes", TimeUnit.SECONDS.toNanos(1));
+        }
+        final double cached = stats.percentileMillis("Query.getMakes", 0.95);
+        for (int i = 0; i < 10; i++) {
+            stats.record("Query.getMakes", TimeUnit.SECONDS.toNanos(1));
+        }
+
+    // Then
+        assertEquals(95.0, cached);
+        assertEquals(1000.0, stats.percentileMillis("Query.getMakes", 0.95));
+    }
+}
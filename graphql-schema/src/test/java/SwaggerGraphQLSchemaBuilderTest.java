@@ -1,3 +1,5 @@
+import graphql.ExecutionResult;
+import graphql.GraphQL;
 import graphql.schema.DataFetcher;
 import graphql.schema.FieldCoordinates;
 import graphql.schema.GraphQLFieldDefinition;
@@ -8,8 +10,14 @@ import graphql.schema.GraphQLSchema;
 import io.swagger.models.Swagger;
 import io.swagger.parser.SwaggerParser;
 import com.ipl.graphql.schema.SwaggerGraphQLSchemaBuilder;
+import com.ipl.graphql.schema.UpstreamClients;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.util.Collections;
+
 import static graphql.Scalars.GraphQLID;
 import static graphql.Scalars.GraphQLInt;
 import static graphql.Scalars.GraphQLString;
@@ -118,6 +126,32 @@ public class SwaggerGraphQLSchemaBuilderTest {
         DataFetcher dataFetcher = graphQLSchema.getCodeRegistry().getDataFetcher(fieldCoordinates, graphQLSchema.getQueryType().getFieldDefinition("books"));
         assertNotNull(dataFetcher);
     }
+
+    @Test
+    public void data_fetchers_have_to_retry_failed_calls() throws IOException {
+    // Given
+        final MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("[{\"name\": \"Dune\"}]"));
+        server.start();
+        final UpstreamClients upstreamClients = new UpstreamClients();
+        final Swagger swagger = new SwaggerParser().read(SWAGGER_LOCATION);
+        swagger.setHost(server.getHostName() + ":" + server.getPort());
+        final GraphQL graphQL = GraphQL.newGraphQL(new SwaggerGraphQLSchemaBuilder(upstreamClients)
+                .swagger("BooksService", swagger)
+                .build()).build();
+
+    // When
+        final ExecutionResult result = graphQL.execute("{ books { name } }");
+
+    // Then
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        assertEquals(Collections.singletonMap("books", Collections.singletonList(Collections.singletonMap("name", "Dune"))),
+                result.getData());
+        assertEquals(2, server.getRequestCount());
+        upstreamClients.shutdown();
+        server.shutdown();
+    }
 /*
 TODO
 // Use with mockwebserver
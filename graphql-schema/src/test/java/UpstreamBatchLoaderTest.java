@@ -0,0 +1,100 @@
+import com.ipl.graphql.schema.OpenApiGraphQLSchemaBuilder;
+import com.ipl.graphql.schema.UpstreamClients;
+import com.ipl.graphql.schema.UpstreamOptions;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.servers.Server;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UpstreamBatchLoaderTest {
+    private static final String OPENAPI_LOCATION = "src/test/resources/users-openapi.json";
+    private static final String QUERY = "{ a: getUserById(id: \"1\") { name } b: getUserById(id: \"2\") { name }"
+            + " c: getUserById(id: \"3\") { name } }";
+
+    private MockWebServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                final HttpUrl url = request.getRequestUrl();
+                final String body = url.encodedPath().equals("/users")
+                        ? url.queryParameterValues("ids").stream()
+                                .filter(id -> !id.equals("3"))
+                                .map(id -> "{\"id\": \"" + id + "\", \"name\": \"user " + id + "\"}")
+                                .collect(Collectors.joining(",", "[", "]"))
+                        : "{\"id\": \"x\", \"name\": \"" + url.encodedPath() + "\"}";
+                return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void calls_with_bulk_variant_have_to_be_sent_as_one_request() throws InterruptedException {
+    // When
+        final ExecutionResult result = execute(new UpstreamClients());
+
+    // Then
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        final Map<String, Map<String, Object>> data = result.getData();
+        assertEquals("user 1", data.get("a").get("name"));
+        assertEquals("user 2", data.get("b").get("name"));
+        assertNull(data.get("c"));
+        assertEquals(1, server.getRequestCount());
+        assertEquals("/users?ids=1&ids=2&ids=3", server.takeRequest().getPath());
+    }
+
+    @Test
+    public void calls_without_bulk_variant_have_to_be_deduplicated() {
+    // Given
+        final UpstreamOptions options = new UpstreamOptions();
+        options.setBatching(true);
+
+    // When
+        final ExecutionResult result = execute(new UpstreamClients(options),
+                "{ a: getUsers { name } b: getUsers { name } }");
+
+    // Then
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private ExecutionResult execute(UpstreamClients upstreamClients) {
+        return execute(upstreamClients, QUERY);
+    }
+
+    private ExecutionResult execute(UpstreamClients upstreamClients, String query) {
+        final OpenAPI openAPI = new OpenAPIV3Parser().read(OPENAPI_LOCATION);
+        openAPI.setServers(Collections.singletonList(new Server().url(server.url("").toString().replaceAll("/$", ""))));
+        final GraphQL graphQL = GraphQL.newGraphQL(new OpenApiGraphQLSchemaBuilder(upstreamClients).openapi("UsersService", openAPI).build()).build();
+        return graphQL.execute(ExecutionInput.newExecutionInput(query).dataLoaderRegistry(new DataLoaderRegistry()).build());
+    }
+}
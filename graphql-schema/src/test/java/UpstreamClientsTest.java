@@ -0,0 +1,44 @@
+import com.ipl.graphql.schema.UpstreamClients;
+import com.ipl.graphql.schema.UpstreamOptions;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class UpstreamClientsTest {
+
+    @Test
+    public void clients_have_to_share_connection_pool_and_dispatcher() {
+    // Given
+        final UpstreamClients upstreamClients = new UpstreamClients();
+
+    // When
+        final OkHttpClient users = upstreamClients.client("UsersService");
+        final OkHttpClient books = upstreamClients.client("BooksService");
+
+    // Then
+        assertNotSame(users, books);
+        assertSame(users, upstreamClients.client("UsersService"));
+        assertSame(users.connectionPool(), books.connectionPool());
+        assertSame(users.dispatcher(), books.dispatcher());
+    }
+
+    @Test
+    public void client_has_to_apply_service_timeouts() {
+    // Given
+        final UpstreamOptions options = new UpstreamOptions();
+        options.setReadTimeout(Duration.ofSeconds(10));
+        final UpstreamOptions.Service usersOptions = new UpstreamOptions.Service();
+        usersOptions.setReadTimeout(Duration.ofSeconds(3));
+        options.getServices().put("UsersService", usersOptions);
+        final UpstreamClients upstreamClients = new UpstreamClients(options);
+
+    // Then
+        assertEquals(3000, upstreamClients.client("UsersService").readTimeoutMillis());
+        assertEquals(10000, upstreamClients.client("BooksService").readTimeoutMillis());
+    }
+}
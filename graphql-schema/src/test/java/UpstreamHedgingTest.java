@@ -0,0 +1,87 @@
+import com.ipl.graphql.schema.UpstreamClients;
+import com.ipl.graphql.schema.UpstreamHedging;
+import com.ipl.graphql.schema.UpstreamOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UpstreamHedgingTest {
+    private MockWebServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void slow_gets_have_to_be_hedged() throws IOException {
+    // Given
+        final UpstreamOptions options = new UpstreamOptions();
+        options.getHedging().setEnabled(true);
+        options.getHedging().setMinSamples(3);
+        options.getHedging().setMinDelay(Duration.ofMillis(50));
+        final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final UpstreamClients upstreamClients = new UpstreamClients(options, meterRegistry);
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setBody("fast"));
+            upstreamClients.call("ListingService", get()).join().close();
+        }
+        server.enqueue(new MockResponse().setBody("slow").setHeadersDelay(2, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody("hedge"));
+
+    // When
+        final long start = System.nanoTime();
+        try (Response response = upstreamClients.call("ListingService", get()).join()) {
+
+    // Then
+            assertEquals("hedge", response.body().string());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(1.0, meterRegistry.counter("graphql.upstream.hedging", "service", "ListingService", "event", "hedged").count());
+        assertEquals(1.0, meterRegistry.counter("graphql.upstream.hedging", "service", "ListingService", "event", "won").count());
+        // the cancelled slow attempt is sampled too, not only the hedge that beat it
+        assertEquals(5, upstreamClients.hedging().operationStats().count("ListingService/GET /makes"));
+    }
+
+    @Test
+    public void cancelled_calls_have_to_cancel_the_first_attempt_before_hedging() {
+    // Given
+        final UpstreamOptions options = new UpstreamOptions();
+        options.getHedging().setEnabled(true);
+        options.getHedging().setMinSamples(1);
+        options.getHedging().setMinDelay(Duration.ofSeconds(10));
+        final UpstreamHedging hedging = new UpstreamHedging(options, new SimpleMeterRegistry());
+        hedging.operationStats().record("ListingService/GET /makes", TimeUnit.MILLISECONDS.toNanos(10));
+        final CompletableFuture<Response> first = new CompletableFuture<>();
+
+    // When
+        hedging.call("ListingService", get(), 0, (request, timeoutMillis) -> first).cancel(true);
+
+    // Then
+        assertTrue(first.isCancelled());
+    }
+
+    private Request get() {
+        return new Request.Builder().url(server.url("/makes")).build();
+    }
+}
@@ -0,0 +1,57 @@
+import com.ipl.graphql.schema.UpstreamClients;
+import com.ipl.graphql.schema.UpstreamOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UpstreamMetricsTest {
+    private MockWebServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void calls_have_to_be_timed_per_service_and_status() {
+    // Given
+        final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final UpstreamOptions options = new UpstreamOptions();
+        options.getResilience().setEnabled(false);
+        final UpstreamClients upstreamClients = new UpstreamClients(options, meterRegistry);
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("[1,2,3]"));
+        server.enqueue(new MockResponse().setResponseCode(404));
+        final Request request = new Request.Builder().url(server.url("/makes")).build();
+
+    // When
+        try (Response ok = upstreamClients.call("ListingService", request).join();
+             Response notFound = upstreamClients.callAsync("ListingService", request).join()) {
+            upstreamClients.metrics().recordDecode("ListingService", 1000);
+        }
+
+    // Then
+        assertEquals(1, meterRegistry.get("graphql.upstream.requests")
+                .tags("service", "ListingService", "method", "GET", "status", "200").timer().count());
+        assertEquals(1, meterRegistry.get("graphql.upstream.requests")
+                .tags("service", "ListingService", "method", "GET", "status", "404").timer().count());
+        assertEquals(7, meterRegistry.get("graphql.upstream.response.size").tag("service", "ListingService")
+                .summary().totalAmount());
+        assertEquals(1, meterRegistry.get("graphql.upstream.decode").tag("service", "ListingService").timer().count());
+    }
+}
@@ -0,0 +1,88 @@
+import com.ipl.graphql.schema.CircuitBreaker;
+import com.ipl.graphql.schema.UpstreamClients;
+import com.ipl.graphql.schema.UpstreamOptions;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UpstreamResilienceTest {
+    private MockWebServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void failed_gets_have_to_be_retried_within_the_budget() {
+    // Given
+        final UpstreamClients upstreamClients = new UpstreamClients(options());
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("[]"));
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+    // When
+        final Response retried = upstreamClients.call("ListingService", get()).join();
+        final Response post = upstreamClients.call("ListingService", new Request.Builder().url(server.url("/makes"))
+                .post(okhttp3.RequestBody.create(null, new byte[0])).build()).join();
+
+    // Then
+        assertEquals(200, retried.code());
+        assertEquals(503, post.code());
+        assertEquals(3, server.getRequestCount());
+        assertTrue(upstreamClients.resilience().retryBalance("ListingService") < 1);
+    }
+
+    @Test
+    public void open_breakers_have_to_fail_fast() {
+    // Given
+        final UpstreamOptions options = options();
+        options.getResilience().setMaxRetries(0);
+        final UpstreamClients upstreamClients = new UpstreamClients(options);
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+    // When
+        for (int i = 0; i < 4; i++) {
+            upstreamClients.call("ListingService", get()).join().close();
+        }
+        final CompletionException failure = assertThrows(CompletionException.class,
+                () -> upstreamClients.call("ListingService", get()).join());
+
+    // Then
+        assertTrue(failure.getCause() instanceof CircuitBreaker.OpenException);
+        assertEquals(CircuitBreaker.State.OPEN, upstreamClients.resilience().breaker("ListingService").getState());
+        assertEquals(4, server.getRequestCount());
+    }
+
+    private UpstreamOptions options() {
+        final UpstreamOptions options = new UpstreamOptions();
+        options.getResilience().setMinimumCalls(4);
+        options.getResilience().setRetryBurst(1);
+        options.getResilience().setRetryBackoff(Duration.ofMillis(10));
+        return options;
+    }
+
+    private Request get() {
+        return new Request.Builder().url(server.url("/makes")).build();
+    }
+}
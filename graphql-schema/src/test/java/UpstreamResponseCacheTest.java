@@ -0,0 +1,193 @@
+import com.ipl.graphql.schema.UpstreamClients;
+import com.ipl.graphql.schema.UpstreamOptions;
+import com.ipl.graphql.schema.UpstreamResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class UpstreamResponseCacheTest {
+    private static final String SERVICE = "ListingService";
+
+    private MockWebServer server;
+    private MeterRegistry meterRegistry;
+    private UpstreamClients upstreamClients;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        meterRegistry = new SimpleMeterRegistry();
+        final UpstreamOptions options = new UpstreamOptions();
+        options.getCache().setEnabled(true);
+        upstreamClients = new UpstreamClients(options, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void fresh_responses_have_to_be_served_from_cache() {
+    // Given
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody("first"));
+        server.enqueue(new MockResponse().setBody("second"));
+
+    // Then
+        assertEquals("first", get("/makes"));
+        assertEquals("first", get("/makes"));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1.0, meterRegistry.get("graphql.upstream.cache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    public void no_store_and_vary_star_responses_have_not_to_be_cached() {
+    // Given
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60, no-store").setBody("first"));
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setHeader("Vary", "*").setBody("second"));
+        server.enqueue(new MockResponse().setBody("third"));
+
+    // Then
+        assertEquals("first", get("/makes"));
+        assertEquals("second", get("/makes"));
+        assertEquals("third", get("/makes"));
+    }
+
+    @Test
+    public void not_found_has_to_be_cached_shortly() {
+    // Given
+        server.enqueue(new MockResponse().setResponseCode(404));
+        server.enqueue(new MockResponse().setBody("found"));
+
+    // Then
+        assertNull(get("/makes/1"));
+        assertNull(get("/makes/1"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void stale_responses_have_to_be_served_while_revalidating() throws InterruptedException {
+    // Given
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=0, stale-while-revalidate=60").setBody("first"));
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody("second"));
+
+    // Then
+        assertEquals("first", get("/makes"));
+        assertEquals("first", get("/makes"));
+        // the refresh does not block the caller served the stale body
+        server.takeRequest(5, TimeUnit.SECONDS);
+        server.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals("second", eventually("/makes", "second"));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void failed_refreshes_have_to_be_retried_within_the_stale_window() throws InterruptedException {
+    // Given
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=0, stale-while-revalidate=60").setBody("first"));
+        server.enqueue(new MockResponse().setResponseCode(404).setHeader("Cache-Control", "no-store"));
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody("second"));
+
+    // When
+        assertEquals("first", get("/makes"));
+        assertEquals("first", get("/makes"));
+        server.takeRequest(5, TimeUnit.SECONDS);
+        server.takeRequest(5, TimeUnit.SECONDS);
+
+    // Then
+        assertEquals("second", eventually("/makes", "second"));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void not_modified_responses_have_to_reuse_the_cached_body() throws InterruptedException {
+    // Given
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "no-cache").setHeader("ETag", "\"v1\"").setBody("first"));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("Cache-Control", "max-age=60"));
+        server.enqueue(new MockResponse().setBody("second"));
+
+    // Then
+        assertEquals("first", get("/makes"));
+        assertEquals("first", get("/makes"));
+        assertEquals("first", get("/makes"));
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1.0, meterRegistry.get("graphql.upstream.cache").tag("result", "not-modified").counter().count());
+    }
+
+    @Test
+    public void responses_have_to_be_cached_per_varied_header_value() {
+    // Given
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setHeader("Vary", "Accept-Language").setBody("en"));
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setHeader("Vary", "Accept-Language").setBody("fr"));
+
+    // Then
+        for (int i = 0; i < 3; i++) {
+            assertEquals("en", get("/makes", "en"));
+            assertEquals("fr", get("/makes", "fr"));
+        }
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void the_age_of_a_response_has_to_be_deducted_from_its_lifetime() {
+    // Given
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setHeader("Age", "60").setBody("first"));
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setHeader("Age", "30").setBody("second"));
+
+    // Then
+        assertEquals("first", get("/makes"));
+        assertEquals("second", get("/makes"));
+        assertEquals("second", get("/makes"));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private Object get(String path) {
+        return get(path, null);
+    }
+
+    private Object get(String path, String language) {
+        final UpstreamResponseCache cache = upstreamClients.responseCache();
+        final Request.Builder builder = new Request.Builder().url(server.url(path));
+        if (language != null) {
+            builder.header("Accept-Language", language);
+        }
+        final Request request = builder.build();
+        return cache.get(SERVICE, request, call -> upstreamClients.call(SERVICE, call),
+                refresh -> upstreamClients.callAsync(SERVICE, refresh), UpstreamResponseCacheTest::body).join();
+    }
+
+    /**
+     * Gets a path until a background refresh has stored the expected body
+     */
+    private Object eventually(String path, Object expected) throws InterruptedException {
+        Object body = get(path);
+        for (int i = 0; i < 100 && !expected.equals(body); i++) {
+            Thread.sleep(50);
+            body = get(path);
+        }
+        return body;
+    }
+
+    private static Object body(Response response) {
+        try (response) {
+            return response.isSuccessful() ? response.body().string() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.ipl.graphql.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control of GraphQL requests.
+ * An AIMD limiter bounds the requests executing at once: the limit grows by one while requests
+ * finish within the target latency and the limiter is used, and is cut by the backoff ratio when
+ * the p95 latency of a window of requests is over the target, so a single slow query does not.
+ * Each client identity also has a token bucket quota.
+ */
+@Slf4j
+@Component
+public class AdmissionControl {
+
+    /**
+     * Outcome of an admission
+     */
+    public enum Decision {ACCEPTED, THROTTLED, OVERLOADED}
+
+    /** Latency percentile of a window compared to the target latency. */
+    private static final double PERCENTILE = 0.95;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+    private final double clientRate;
+    private final int clientBurst;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Cache<String, TokenBucket> buckets;
+    /** Latencies of the current window, guarded by this. */
+    private final long[] window;
+    private int windowed;
+    private double limit;
+
+    public AdmissionControl(@Value("${graphql.admission.enabled:true}") boolean enabled,
+                            @Value("${graphql.admission.initial-limit:100}") int initialLimit,
+                            @Value("${graphql.admission.min-limit:10}") int minLimit,
+                            @Value("${graphql.admission.max-limit:1000}") int maxLimit,
+                            @Value("${graphql.admission.target-latency:1s}") Duration targetLatency,
+                            @Value("${graphql.admission.backoff-ratio:0.9}") double backoffRatio,
+                            @Value("${graphql.admission.window-size:50}") int windowSize,
+                            @Value("${graphql.admission.client-rate:0}") double clientRate,
+                            @Value("${graphql.admission.client-burst:100}") int clientBurst,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.window = new long[Math.max(1, windowSize)];
+        this.clientRate = clientRate;
+        this.clientBurst = Math.max(1, clientBurst);
+        this.meterRegistry = meterRegistry;
+        this.buckets = CacheBuilder.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        Gauge.builder("graphql.admission.limit", this, AdmissionControl::getLimit).register(meterRegistry);
+        Gauge.builder("graphql.admission.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Admits a request of a client, an accepted request has to be released once done
+     * @param client client identity
+     * @return
+     */
+    public Decision tryAcquire(String client) {
+        if (!enabled) {
+            return Decision.ACCEPTED;
+        }
+        if (clientRate > 0 && !bucket(client).tryTake()) {
+            count(Decision.THROTTLED);
+            return Decision.THROTTLED;
+        }
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= getLimit()) {
+                count(Decision.OVERLOADED);
+                return Decision.OVERLOADED;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return Decision.ACCEPTED;
+            }
+        }
+    }
+
+    /**
+     * Releases an accepted request and adjusts the limit to its latency
+     * @param latencyNanos
+     */
+    public void release(long latencyNanos) {
+        if (!enabled) {
+            return;
+        }
+        final int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (latencyNanos <= targetLatencyNanos && current * 2 >= limit) {
+                // only grow while the limit is actually used
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            window[windowed++] = latencyNanos;
+            if (windowed == window.length) {
+                windowed = 0;
+                if (percentile(window) > targetLatencyNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    log.debug("admission limit decreased -- {}", (int) limit);
+                }
+            }
+        }
+    }
+
+    /**
+     * Seconds until a throttled client gets a new token
+     * @param client
+     * @return
+     */
+    public long retryAfterSeconds(String client) {
+        return clientRate > 0 ? Math.max(1, (long) Math.ceil(bucket(client).secondsUntilToken())) : 1;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public State state() {
+        return new State(enabled, getLimit(), inFlight.get(), minLimit, maxLimit, buckets.size());
+    }
+
+    private static long percentile(long[] window) {
+        final long[] sorted = window.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.max(0, (int) Math.ceil(PERCENTILE * sorted.length) - 1)];
+    }
+
+    private TokenBucket bucket(String client) {
+        try {
+            return buckets.get(client, () -> new TokenBucket(clientRate, clientBurst));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void count(Decision decision) {
+        Counter.builder("graphql.admission.rejected")
+                .tag("reason", decision.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Limiter state
+     */
+    @lombok.Value
+    public static class State {
+        boolean enabled;
+        int limit;
+        int inFlight;
+        int minLimit;
+        int maxLimit;
+        long clients;
+    }
+
+    /**
+     * Token bucket refilled continuously at rate tokens per second
+     */
+    private static class TokenBucket {
+        private final double rate;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        TokenBucket(double rate, int capacity) {
+            this.rate = rate;
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        synchronized boolean tryTake() {
+            refill();
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        synchronized double secondsUntilToken() {
+            refill();
+            return tokens >= 1 ? 0 : (1 - tokens) / rate;
+        }
+
+        private void refill() {
+            final long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.ipl.graphql.server;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint exposing the admission limiter state at /actuator/admission
+ */
+@Component
+@Endpoint(id = "admission")
+public class AdmissionEndpoint {
+    private final AdmissionControl admissionControl;
+
+    public AdmissionEndpoint(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @ReadOperation
+    public AdmissionControl.State admission() {
+        return admissionControl.state();
+    }
+}
@@ -0,0 +1,98 @@
+package com.ipl.graphql.server;
+
+import graphql.ExecutionResultImpl;
+import graphql.GraphqlErrorBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Admits POST /graphql requests through {@link AdmissionControl}.
+ * Clients over their quota get a 429, requests over the concurrency limit a 503, both with a
+ * Retry-After header and without reaching GraphQL execution.
+ */
+@Slf4j
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+    private final AdmissionControl admissionControl;
+    private final GraphQLResponseWriter responseWriter;
+    private final String clientHeader;
+    /** Remote addresses allowed to set the client header, e.g. an authenticating proxy. */
+    private final Set<String> trustedProxies;
+
+    public AdmissionFilter(AdmissionControl admissionControl, GraphQLResponseWriter responseWriter,
+                           @Value("${graphql.admission.client-header:X-Client-Id}") String clientHeader,
+                           @Value("${graphql.admission.trusted-proxies:}") String trustedProxies) {
+        this.admissionControl = admissionControl;
+        this.responseWriter = responseWriter;
+        this.clientHeader = clientHeader;
+        this.trustedProxies = Arrays.stream(trustedProxies.split(","))
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !"/graphql".equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final String client = client(request);
+        switch (admissionControl.tryAcquire(client)) {
+            case THROTTLED:
+                reject(request, response, HttpStatus.TOO_MANY_REQUESTS, admissionControl.retryAfterSeconds(client),
+                        "Request quota exceeded", "THROTTLED");
+                return;
+            case OVERLOADED:
+                reject(request, response, HttpStatus.SERVICE_UNAVAILABLE, 1, "Server overloaded", "OVERLOADED");
+                return;
+            default:
+                break;
+        }
+        final long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            admissionControl.release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Client identity: the authenticated principal, else the client header when sent by a trusted proxy,
+     * else the remote address. An untrusted header is ignored, a client could get a new quota per request.
+     */
+    private String client(HttpServletRequest request) {
+        if (request.getUserPrincipal() != null) {
+            return "principal:" + request.getUserPrincipal().getName();
+        }
+        final String client = trustedProxies.contains(request.getRemoteAddr()) ? request.getHeader(clientHeader) : null;
+        return client == null || client.isBlank() ? request.getRemoteAddr() : "header:" + client;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status, long retryAfterSeconds,
+                        String message, String code) throws IOException {
+        log.debug("graphql request rejected -- {}", code);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        responseWriter.write(new ExecutionResultImpl(GraphqlErrorBuilder.newError()
+                .message(message)
+                .extensions(Collections.singletonMap("code", code))
+                .build()), request, response);
+    }
+}
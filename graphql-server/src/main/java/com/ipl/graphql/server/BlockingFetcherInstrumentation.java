@@ -0,0 +1,48 @@
+package com.ipl.graphql.server;
+
+import com.ipl.graphql.schema.BlockingDataFetcher;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs blocking data fetchers on an executor, so AsyncExecutionStrategy resolves sibling fields concurrently.
+ * Unlike ExecutorServiceExecutionStrategy it keeps DataLoader batching working, fetchers loading through a
+ * DataLoader are not blocking and run on the dispatching thread.
+ */
+class BlockingFetcherInstrumentation extends SimpleInstrumentation {
+    private final ExecutorService executor;
+
+    BlockingFetcherInstrumentation(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters) {
+        if (!(dataFetcher instanceof BlockingDataFetcher)) {
+            return dataFetcher;
+        }
+        return environment -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataFetcher.get(environment);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor).thenCompose(BlockingFetcherInstrumentation::flatten);
+    }
+
+    /**
+     * A fetcher returning a future, e.g. a completed one, is only resolved once by the execution strategy
+     */
+    @SuppressWarnings("unchecked")
+    private static CompletionStage<Object> flatten(Object value) {
+        return value instanceof CompletionStage
+                ? (CompletionStage<Object>) value
+                : CompletableFuture.completedFuture(value);
+    }
+}
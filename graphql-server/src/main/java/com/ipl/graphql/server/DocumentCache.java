@@ -0,0 +1,111 @@
+package com.ipl.graphql.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of parsed and validated query documents.
+ * Entries are keyed by the schema version and the hash of the normalized query, so a document
+ * validated against a previous schema is never reused.
+ */
+@Slf4j
+@Component
+public class DocumentCache {
+
+    private final Cache<String, PreparsedDocumentEntry> cache;
+
+    public DocumentCache(@Value("${graphql.document-cache.max-size:1000}") long maxSize, MeterRegistry meterRegistry) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "graphql.documents");
+    }
+
+    /**
+     * Returns the document provider of a schema version
+     * @param schemaVersion
+     * @return
+     */
+    public PreparsedDocumentProvider forVersion(long schemaVersion) {
+        return (executionInput, parseAndValidate) -> getDocument(schemaVersion, executionInput, parseAndValidate);
+    }
+
+    /**
+     * Drops every cached document, called when the schema changes
+     */
+    public void invalidate() {
+        cache.invalidateAll();
+    }
+
+    private PreparsedDocumentEntry getDocument(long schemaVersion, ExecutionInput executionInput,
+                                               Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        final String key = schemaVersion + ":" + hash(executionInput.getQuery());
+        try {
+            return cache.get(key, () -> parseAndValidate.apply(executionInput));
+        } catch (ExecutionException e) {
+            log.warn("document cache -- {}", e.getMessage());
+            return parseAndValidate.apply(executionInput);
+        }
+    }
+
+    /**
+     * SHA-256 of the query with insignificant whitespace and commas collapsed
+     * @param query
+     * @return
+     */
+    static String hash(String query) {
+        return Hashing.sha256().hashString(normalize(query), StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Collapses whitespace and drops comments outside of string literals, so the same query sent
+     * with different formatting shares one cache entry
+     * @param query
+     * @return
+     */
+    static String normalize(String query) {
+        final StringBuilder normalized = new StringBuilder(query.length());
+        boolean inString = false;
+        boolean pendingSpace = false;
+        for (int i = 0; i < query.length(); i++) {
+            final char c = query.charAt(i);
+            if (inString) {
+                normalized.append(c);
+                if (c == '\\' && i + 1 < query.length()) {
+                    normalized.append(query.charAt(++i));
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '#') {
+                while (i + 1 < query.length() && query.charAt(i + 1) != '\n' && query.charAt(i + 1) != '\r') {
+                    i++;
+                }
+                pendingSpace = normalized.length() > 0;
+            } else if (Character.isWhitespace(c) || c == ',') {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+                inString = c == '"';
+            }
+        }
+        return normalized.toString();
+    }
+}
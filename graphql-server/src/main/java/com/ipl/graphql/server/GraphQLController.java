@@ -2,7 +2,6 @@ package com.ipl.graphql.server;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -10,35 +9,81 @@ import org.springframework.web.bind.annotation.RestController;
 
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.ExecutionId;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
 
 @RequestMapping("/graphql")
 @RestController
 @Slf4j
 public class GraphQLController {
     private final GraphQLProvider graphQLProvider;
+    private final PersistedQueryStore persistedQueryStore;
+    private final GraphQLResponseWriter responseWriter;
+    private final TracingInstrumentation tracing;
 
-    public GraphQLController(GraphQLProvider graphQLProvider) {
+    public GraphQLController(GraphQLProvider graphQLProvider, PersistedQueryStore persistedQueryStore,
+                             GraphQLResponseWriter responseWriter, TracingInstrumentation tracing) {
         this.graphQLProvider = graphQLProvider;
+        this.persistedQueryStore = persistedQueryStore;
+        this.responseWriter = responseWriter;
+        this.tracing = tracing;
     }
 
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Object> graphql(@RequestBody GraphQLRequestBody request) {
+    public void graphql(@RequestBody GraphQLRequestBody request, HttpServletRequest httpRequest,
+                        HttpServletResponse httpResponse) throws IOException {
         log.info("graphql request -- {}", request);
-        ExecutionResult result;
-        if (request.getVariables() != null && request.getQuery() != null) {
-            ExecutionInput in = ExecutionInput.newExecutionInput().query(request.getQuery()).variables(request.getVariables()).build();
-            result = graphQLProvider.getGraphQL().execute(in);
-        } else if (request.getMutation() != null) {
-            ExecutionInput in = ExecutionInput.newExecutionInput().query(request.getMutation()).variables(request.getVariables()).build();
-            result = graphQLProvider.getGraphQL().execute(in);
-        } else {
-            result = graphQLProvider.getGraphQL().execute(request.getQuery());
+        String query = request.getQuery() != null ? request.getQuery() : request.getMutation();
+        Optional<String> persistedQueryHash = request.getPersistedQueryHash();
+        if (persistedQueryHash.isPresent()) {
+            // automatic persisted queries, the full text is only sent after a miss
+            if (query == null) {
+                query = persistedQueryStore.get(persistedQueryHash.get()).orElse(null);
+                if (query == null) {
+                    responseWriter.write(error("PersistedQueryNotFound", "PERSISTED_QUERY_NOT_FOUND"), httpRequest, httpResponse);
+                    return;
+                }
+            } else if (!persistedQueryStore.put(persistedQueryHash.get(), query)) {
+                responseWriter.write(error("provided sha does not match query", "INTERNAL_SERVER_ERROR"), httpRequest, httpResponse);
+                return;
+            }
+        }
+
+        // the execution id is the trace id, the trace ends once the response is written
+        ExecutionId executionId = ExecutionId.generate();
+        ExecutionInput.Builder in = ExecutionInput.newExecutionInput()
+                .executionId(executionId)
+                .query(query)
+                .operationName(request.getOperationName())
+                .variables(Optional.ofNullable(request.getVariables()).orElse(Collections.emptyMap()));
+        if (tracing.isProfileRequested(httpRequest)) {
+            in.context(context -> context.of(TracingInstrumentation.PROFILE, true));
         }
-        
-        
+        ExecutionResult result = graphQLProvider.execute(in);
+
         log.info("graphql response -- {}", result.isDataPresent() ? "success" : result.getErrors());
         log.debug("graphql full response -- {}", result);
-        return ResponseEntity.ok(result);
+        // streamed to the client, the result is not serialized into an intermediate buffer
+        long serializationStart = System.nanoTime();
+        try {
+            responseWriter.write(result, httpRequest, httpResponse);
+        } finally {
+            tracing.finish(executionId, serializationStart);
+        }
+    }
+
+    private ExecutionResult error(String message, String code) {
+        return new ExecutionResultImpl(GraphqlErrorBuilder.newError()
+                .message(message)
+                .extensions(Collections.singletonMap("code", code))
+                .build());
     }
 
 }
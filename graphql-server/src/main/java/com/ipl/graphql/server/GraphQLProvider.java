@@ -1,96 +1,289 @@
 package com.ipl.graphql.server;
 
+import com.ipl.graphql.schema.GraphQLSchemaBuilder;
+import com.ipl.graphql.schema.GraphQLSchemaFragment;
 import com.ipl.graphql.schema.OpenApiGraphQLSchemaBuilder;
 import com.ipl.graphql.schema.SwaggerGraphQLSchemaBuilder;
+import com.ipl.graphql.schema.UpstreamCallMemo;
+import com.ipl.graphql.schema.UpstreamClients;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
 import graphql.GraphQL;
+import graphql.GraphQLContext;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
+import graphql.schema.GraphQLSchema;
 import io.swagger.models.Swagger;
 import io.swagger.parser.SwaggerParser;
+import io.swagger.parser.SwaggerResolver;
 import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.OpenAPIResolver;
 import io.swagger.v3.parser.OpenAPIV3Parser;
+import org.dataloader.DataLoaderRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
+/**
+ * Holds the current GraphQLSnapshot.
+ * Registrations are serialized and publish a new snapshot with an atomic swap, queries read the
+ * current snapshot without locking and finish on it even if a newer one is published meanwhile.
+ */
 @Component
 public class GraphQLProvider {
-
-    private Map<String, Swagger> swaggerServices = new HashMap<>();
-    private Map<String, OpenAPI> openApiServices = new HashMap<>();
+    /** Name of the optional executor bean running the blocking data fetchers. */
+    public static final String EXECUTOR = "graphqlExecutor";
 
     private final Environment environment;
-    private GraphQL graphQL;
+    private final UpstreamClients upstreamClients;
+    private final ExecutorService executor;
+    private final DocumentCache documentCache;
+    /** Instrumentations of every GraphQL instance, the blocking fetcher offload first, the DataLoader dispatcher last. */
+    private final List<Instrumentation> instrumentations = new ArrayList<>();
+    /** Pool converting OpenAPI specs in parallel, null to convert on the registering thread. */
+    private final ForkJoinPool conversionPool;
+    private final AtomicReference<GraphQLSnapshot> snapshot = new AtomicReference<>(GraphQLSnapshot.empty());
+    /** Serializes the writers, readers never take it. */
+    private final Object writeLock = new Object();
 
-    public GraphQLProvider(Environment environment) {
+    public GraphQLProvider(Environment environment, UpstreamClients upstreamClients,
+                           @Qualifier(EXECUTOR) ObjectProvider<ExecutorService> executor,
+                           DocumentCache documentCache,
+                           @Value("${graphql.conversion.parallelism:0}") int conversionParallelism,
+                           ObjectProvider<Instrumentation> instrumentations) {
         this.environment = environment;
+        this.upstreamClients = upstreamClients;
+        this.executor = executor.getIfAvailable();
+        this.documentCache = documentCache;
+        if (this.executor != null) {
+            // first, so every other instrumentation wraps the offloaded fetcher
+            this.instrumentations.add(new BlockingFetcherInstrumentation(this.executor));
+        }
+        instrumentations.orderedStream().forEach(this.instrumentations::add);
+        this.instrumentations.add(new DataLoaderDispatcherInstrumentation());
+        this.conversionPool = conversionParallelism > 0 ? new ForkJoinPool(conversionParallelism) : null;
     }
 
     /**
-     * Registers a REST service
+     * Registers a REST service, reading its spec from a location
      * @param name
      * @param location
+     * @return schema version including the service
      */
-    public void register(String name, String location) {
-        switch (Objects.requireNonNull(environment.getProperty("schema"))) {
+    public long register(String name, String location) {
+        // specs are converted before taking the write lock, registrations of different services overlap
+        GraphQLSchemaFragment fragment;
+        switch (schemaType()) {
             case "openapi":
-                openApiServices.put(name, new OpenAPIV3Parser().read(location));
+                fragment = new OpenApiGraphQLSchemaBuilder(upstreamClients)
+                        .parallel(conversionPool)
+                        .fragment(name, new OpenAPIV3Parser().read(location));
                 break;
             case "swagger":
-                swaggerServices.put(name, new SwaggerParser().read(location));
+                fragment = new SwaggerGraphQLSchemaBuilder(upstreamClients)
+                        .fragment(name, new SwaggerParser().read(location));
                 break;
             default:
-                throw new IllegalArgumentException("Unknown schema type: " + environment.getProperty("schema"));
+                throw new IllegalArgumentException("Unknown schema type: " + schemaType());
         }
-        load();
+        return publish(fragments -> fragments.put(name, fragment));
+    }
+
+    /**
+     * Registers a REST service from the contents of its spec
+     * @param name
+     * @param spec JSON or YAML spec
+     * @return schema version including the service
+     */
+    public long registerSpec(String name, String spec) {
+        return registerSpec(name, spec, null, () -> true).getAsLong();
+    }
+
+    /**
+     * Registers a REST service from the contents of its spec if it is still wanted once converted
+     * @param name
+     * @param spec JSON or YAML spec
+     * @param location URL or file the spec was read from, relative external $refs are resolved against it, may be null
+     * @param current checked under the write lock, right before publishing
+     * @return schema version including the service, empty when it was not current anymore
+     */
+    public OptionalLong registerSpec(String name, String spec, String location, BooleanSupplier current) {
+        GraphQLSchemaFragment fragment = convert(name, spec, location);
+        return publish(current, fragments -> fragments.put(name, fragment));
+    }
+
+    /**
+     * Registers several REST services in one schema build, e.g. when restoring a snapshot
+     * @param specs JSON or YAML specs by service name
+     * @return schema version including the services
+     */
+    public long registerSpecs(Map<String, String> specs) {
+        return registerSpecs(specs, Collections.emptyMap());
+    }
+
+    /**
+     * Registers several REST services in one schema build
+     * @param specs JSON or YAML specs by service name
+     * @param locations URLs or files the specs were read from by service name
+     * @return schema version including the services
+     */
+    public long registerSpecs(Map<String, String> specs, Map<String, String> locations) {
+        Map<String, GraphQLSchemaFragment> converted = new LinkedHashMap<>();
+        specs.forEach((name, spec) -> converted.put(name, convert(name, spec, locations.get(name))));
+        return publish(fragments -> fragments.putAll(converted));
     }
 
     /**
-     * Registers a REST service
+     * Unregisters a REST service
      * @param name
      */
     public void unregister(String name) {
-        String schema = Objects.requireNonNull(environment.getProperty("schema"));
-        if (schema.equals("openapi")) {
-            openApiServices.remove(name);
-        } else if (schema.equals("swagger")) {
-            swaggerServices.remove(name);
-        } else throw new IllegalArgumentException("Unknown schema type: " + environment.getProperty("schema"));
-        load();
+        publish(fragments -> fragments.remove(name));
+        upstreamClients.evict(name);
     }
 
     public Collection<String> services() {
-        var schema = Objects.requireNonNull(environment.getProperty("schema"));
-        if (schema.equals("openapi")) {
-            return openApiServices.keySet();
-        } else if (schema.equals("swagger")) {
-            return swaggerServices.keySet();
-        } else throw new IllegalArgumentException("Unknown schema type: " + environment.getProperty("schema"));
+        return snapshot.get().getServices();
+    }
+
+    /**
+     * Current snapshot, never null
+     * @return
+     */
+    public GraphQLSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Applies a change to a copy of the registered services and publishes the resulting snapshot
+     * @param change
+     * @return version of the published snapshot
+     */
+    private long publish(Consumer<Map<String, GraphQLSchemaFragment>> change) {
+        return publish(() -> true, change).getAsLong();
+    }
+
+    /**
+     * Applies a change to a copy of the registered services and publishes the resulting snapshot,
+     * unless the guard fails under the write lock
+     * @param guard
+     * @param change
+     * @return version of the published snapshot, empty when the guard failed
+     */
+    private OptionalLong publish(BooleanSupplier guard, Consumer<Map<String, GraphQLSchemaFragment>> change) {
+        synchronized (writeLock) {
+            if (!guard.getAsBoolean()) {
+                return OptionalLong.empty();
+            }
+            GraphQLSnapshot current = snapshot.get();
+            Map<String, GraphQLSchemaFragment> fragments = new LinkedHashMap<>(current.getFragments());
+            change.accept(fragments);
+            if (fragments.equals(current.getFragments())) {
+                return OptionalLong.of(current.getVersion());
+            }
+            long version = current.getVersion() + 1;
+            GraphQLSchema schema = fragments.isEmpty()
+                    ? null
+                    : new GraphQLSchemaBuilder().fragments(fragments.values()).build();
+            GraphQL graphQL = schema == null ? null : newGraphQL(schema, version);
+            snapshot.set(new GraphQLSnapshot(version, fragments, schema, graphQL));
+            return OptionalLong.of(version);
+        }
+    }
+
+    /**
+     * @param location resolves relative external $refs like reading the spec from there would, ignored when null
+     */
+    private GraphQLSchemaFragment convert(String name, String spec, String location) {
+        switch (schemaType()) {
+            case "openapi":
+                OpenAPI openAPI = Objects.requireNonNull(new OpenAPIV3Parser().readContents(spec, null, null).getOpenAPI(),
+                        "Invalid OpenAPI spec");
+                if (location != null) {
+                    openAPI = new OpenAPIResolver(openAPI, null, location).resolve();
+                }
+                return new OpenApiGraphQLSchemaBuilder(upstreamClients)
+                        .parallel(conversionPool)
+                        .fragment(name, openAPI);
+            case "swagger":
+                Swagger swagger = Objects.requireNonNull(new SwaggerParser().parse(spec), "Invalid Swagger spec");
+                if (location != null) {
+                    swagger = new SwaggerResolver(swagger, null, location).resolve();
+                }
+                return new SwaggerGraphQLSchemaBuilder(upstreamClients)
+                        .fragment(name, swagger);
+            default:
+                throw new IllegalArgumentException("Unknown schema type: " + schemaType());
+        }
+    }
+
+    private String schemaType() {
+        return Objects.requireNonNull(environment.getProperty("schema"));
+    }
+
+    private GraphQL newGraphQL(GraphQLSchema graphQLSchema, long version) {
+        // documents validated against the previous schema are dropped
+        documentCache.invalidate();
+        // AsyncExecutionStrategy is kept with an executor, DataLoaderDispatcherInstrumentation only batches with it,
+        // blocking fetchers are moved to the executor instead
+        return GraphQL.newGraphQL(graphQLSchema)
+                .preparsedDocumentProvider(documentCache.forVersion(version))
+                .instrumentation(new ChainedInstrumentation(instrumentations))
+                .build();
     }
 
     /**
-     * Loads REST services in GraphQL schema
+     * Executes a request on the current snapshot with its own DataLoader registry and upstream call memo,
+     * so upstream calls are batched and deduplicated per execution
+     * @param executionInput
+     * @return
      */
-    private void load() {
-        var schema = Objects.requireNonNull(environment.getProperty("schema"));
-        if (schema.equals("openapi")) {
-            OpenApiGraphQLSchemaBuilder openapiGraphQLConverter = new OpenApiGraphQLSchemaBuilder();
-            openApiServices.values().forEach(openapiGraphQLConverter::openapi);
-            this.graphQL = GraphQL.newGraphQL(openapiGraphQLConverter.build()).build();
-        } else if (schema.equals("swagger")) {
-            SwaggerGraphQLSchemaBuilder swaggerGraphQLConverter = new SwaggerGraphQLSchemaBuilder();
-            swaggerServices.values().forEach(swaggerGraphQLConverter::swagger);
-            this.graphQL = GraphQL.newGraphQL(swaggerGraphQLConverter.build()).build();
-        } else throw new IllegalArgumentException("Unknown schema type: " + environment.getProperty("schema"));
+    public ExecutionResult execute(ExecutionInput.Builder executionInput) {
+        GraphQL graphQL = getGraphQL();
+        if (graphQL == null) {
+            return new ExecutionResultImpl(GraphqlErrorBuilder.newError()
+                    .message("No service is registered")
+                    .build());
+        }
+        ExecutionInput in = executionInput.dataLoaderRegistry(new DataLoaderRegistry()).build();
+        if (in.getContext() instanceof GraphQLContext) {
+            UpstreamCallMemo.attach((GraphQLContext) in.getContext());
+        }
+        return graphQL.execute(in);
     }
 
+    /**
+     * GraphQL of the current snapshot
+     * @return null when no service is registered
+     */
     public GraphQL getGraphQL() {
-        /**
-         * TODO
-         * Controls error when graphQL is null as there is no service registered
-         */
-        return graphQL;
+        return snapshot.get().getGraphQL();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (conversionPool != null) {
+            conversionPool.shutdown();
+        }
     }
 }
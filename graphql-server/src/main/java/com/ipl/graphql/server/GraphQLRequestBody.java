@@ -3,10 +3,26 @@ package com.ipl.graphql.server;
 import lombok.Data;
 
 import java.util.Map;
+import java.util.Optional;
+
 @Data
 public class GraphQLRequestBody {
     private String query;
     private String mutation;
     private String operationName;
     private Map<String, Object> variables;
+    /** Protocol extensions, e.g. persistedQuery: {version: 1, sha256Hash: "..."} */
+    private Map<String, Object> extensions;
+
+    /**
+     * Returns the hash of an automatic persisted query, if any
+     * @return
+     */
+    public Optional<String> getPersistedQueryHash() {
+        return Optional.ofNullable(extensions)
+                .map(ext -> ext.get("persistedQuery"))
+                .filter(Map.class::isInstance)
+                .map(persistedQuery -> ((Map<?, ?>) persistedQuery).get("sha256Hash"))
+                .map(Object::toString);
+    }
 }
@@ -0,0 +1,128 @@
+package com.ipl.graphql.server;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes execution results straight to the servlet output stream.
+ * data, errors and extensions are walked with a JsonGenerator instead of being serialized
+ * reflectively, so a large result is never copied into an intermediate byte array.
+ * The output is buffered and gzip encoded when the client accepts it.
+ */
+@Slf4j
+@Component
+public class GraphQLResponseWriter {
+    private static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+
+    public GraphQLResponseWriter(ObjectMapper objectMapper, @Value("${graphql.response.buffer-size:8192}") int bufferSize) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Writes the result in the GraphQL specification format: errors, data and extensions
+     * @param result
+     * @param request
+     * @param response
+     * @throws IOException
+     */
+    public void write(ExecutionResult result, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        final boolean gzip = acceptsGzip(request.getHeaders(HttpHeaders.ACCEPT_ENCODING));
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        final OutputStream out = gzip
+                ? new GZIPOutputStream(response.getOutputStream(), bufferSize)
+                : new BufferedOutputStream(response.getOutputStream(), bufferSize);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            write(generator, result);
+        }
+    }
+
+    private void write(JsonGenerator generator, ExecutionResult result) throws IOException {
+        generator.writeStartObject();
+        if (!result.getErrors().isEmpty()) {
+            generator.writeArrayFieldStart("errors");
+            for (GraphQLError error : result.getErrors()) {
+                writeValue(generator, error.toSpecification());
+            }
+            generator.writeEndArray();
+        }
+        if (result.isDataPresent()) {
+            generator.writeFieldName("data");
+            writeValue(generator, result.getData());
+        }
+        if (result.getExtensions() != null) {
+            generator.writeFieldName("extensions");
+            writeValue(generator, result.getExtensions());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Maps, collections and scalars are written directly, anything else goes through the ObjectMapper
+     */
+    private void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Map) {
+            generator.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                generator.writeFieldName(String.valueOf(entry.getKey()));
+                writeValue(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof Collection) {
+            generator.writeStartArray();
+            for (Object item : (Collection<?>) value) {
+                writeValue(generator, item);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeObject(value);
+        }
+    }
+
+    /**
+     * Returns true when an Accept-Encoding header lists gzip without q=0
+     * @param acceptEncoding
+     * @return
+     */
+    static boolean acceptsGzip(Enumeration<String> acceptEncoding) {
+        while (acceptEncoding != null && acceptEncoding.hasMoreElements()) {
+            for (String coding : acceptEncoding.nextElement().split(",")) {
+                final String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+                    return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package com.ipl.graphql.server;
+
+import com.ipl.graphql.schema.GraphQLSchemaFragment;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable state of the gateway: the registered services, their converted fragments and the
+ * GraphQL instance built from them. A new snapshot is published for every registration, queries
+ * keep the snapshot they started with.
+ */
+@Value
+public class GraphQLSnapshot {
+    private static final GraphQLSnapshot EMPTY = new GraphQLSnapshot(0, Collections.emptyMap(), null, null);
+
+    /** Schema version, increases with every published snapshot. */
+    long version;
+    /** Converted services by name, in registration order. */
+    Map<String, GraphQLSchemaFragment> fragments;
+    /** Null when no service is registered. */
+    GraphQLSchema schema;
+    /** Null when no service is registered. */
+    GraphQL graphQL;
+
+    public GraphQLSnapshot(long version, Map<String, GraphQLSchemaFragment> fragments, GraphQLSchema schema, GraphQL graphQL) {
+        this.version = version;
+        this.fragments = Collections.unmodifiableMap(new LinkedHashMap<>(fragments));
+        this.schema = schema;
+        this.graphQL = graphQL;
+    }
+
+    public static GraphQLSnapshot empty() {
+        return EMPTY;
+    }
+
+    public Set<String> getServices() {
+        return fragments.keySet();
+    }
+
+    public boolean isEmpty() {
+        return graphQL == null;
+    }
+}
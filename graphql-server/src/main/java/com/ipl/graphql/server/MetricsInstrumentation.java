@@ -0,0 +1,147 @@
+package com.ipl.graphql.server;
+
+import graphql.ExecutionResult;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.language.Document;
+import graphql.schema.GraphQLTypeUtil;
+import graphql.validation.ValidationError;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters of the GraphQL executions.
+ * Times the requests per operation name, the parse, validate and execute phases, and the fields
+ * backed by a data fetcher per field coordinate, e.g. Query.getMakes. Operation names come from the
+ * clients, so only the first max-operations names get their own tag, the others are tagged "other";
+ * field coordinates are capped the same way.
+ */
+@Slf4j
+@Component
+@Order(1)
+public class MetricsInstrumentation extends SimpleInstrumentation {
+    public static final String OTHER = "other";
+    public static final String ANONYMOUS = "anonymous";
+
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final BoundedTag operations;
+    private final BoundedTag fields;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public MetricsInstrumentation(@Value("${graphql.metrics.enabled:true}") boolean enabled,
+                                  @Value("${graphql.metrics.max-operations:100}") int maxOperations,
+                                  @Value("${graphql.metrics.max-fields:500}") int maxFields,
+                                  MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+        this.operations = new BoundedTag(maxOperations);
+        this.fields = new BoundedTag(maxFields);
+        Gauge.builder("graphql.requests.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecution(InstrumentationExecutionParameters parameters) {
+        if (!enabled) {
+            return super.beginExecution(parameters);
+        }
+        final String operation = operations.tag(parameters.getOperation() == null ? ANONYMOUS : parameters.getOperation());
+        final long start = System.nanoTime();
+        inFlight.incrementAndGet();
+        return SimpleInstrumentationContext.whenCompleted((result, e) -> {
+            inFlight.decrementAndGet();
+            final boolean failed = e != null || result == null || !result.getErrors().isEmpty();
+            Timer.builder("graphql.request")
+                    .tag("operation", operation)
+                    .tag("outcome", failed ? "error" : "success")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    @Override
+    public InstrumentationContext<Document> beginParse(InstrumentationExecutionParameters parameters) {
+        return phase("parse");
+    }
+
+    @Override
+    public InstrumentationContext<List<ValidationError>> beginValidation(InstrumentationValidationParameters parameters) {
+        return phase("validate");
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters) {
+        return phase("execute");
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters) {
+        // property fetchers only read the parent value, timing them would cost more than they do
+        if (!enabled || parameters.isTrivialDataFetcher()) {
+            return super.beginFieldFetch(parameters);
+        }
+        final String field = fields.tag(GraphQLTypeUtil.simplePrint(parameters.getExecutionStepInfo().getParent().getUnwrappedNonNullType())
+                + "." + parameters.getField().getName());
+        final long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((value, e) -> Timer.builder("graphql.field")
+                .tag("field", field)
+                .tag("outcome", e != null ? "error" : "success")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private <T> InstrumentationContext<T> phase(String phase) {
+        if (!enabled) {
+            return SimpleInstrumentationContext.noOp();
+        }
+        final long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((value, e) -> Timer.builder("graphql.request.phase")
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Tag values of an unbounded source, the values past the limit fall back to "other"
+     */
+    private static class BoundedTag {
+        private final int limit;
+        private final Set<String> values = ConcurrentHashMap.newKeySet();
+
+        BoundedTag(int limit) {
+            this.limit = limit;
+        }
+
+        String tag(String value) {
+            if (values.contains(value)) {
+                return value;
+            }
+            if (values.size() >= limit) {
+                return OTHER;
+            }
+            log.debug("metrics tag added -- {}", value);
+            values.add(value);
+            return value;
+        }
+    }
+}
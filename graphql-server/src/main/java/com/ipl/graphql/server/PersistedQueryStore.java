@@ -0,0 +1,104 @@
+package com.ipl.graphql.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Store of persisted queries, keyed by the SHA-256 of the query text.
+ * Queries are kept in a bounded in-memory cache and, when graphql.persisted-queries.dir is set,
+ * written to disk so they survive restarts.
+ */
+@Slf4j
+@Component
+public class PersistedQueryStore {
+    private static final Pattern SHA_256 = Pattern.compile("[0-9a-f]{64}");
+
+    private final Cache<String, String> cache;
+    private final Path dir;
+
+    public PersistedQueryStore(@Value("${graphql.persisted-queries.max-size:5000}") long maxSize,
+                               @Value("${graphql.persisted-queries.dir:}") String dir,
+                               MeterRegistry meterRegistry) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.dir = dir.isBlank() ? null : Paths.get(dir);
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "graphql.persisted-queries");
+    }
+
+    /**
+     * Returns the query of a hash, looking on disk when it is not in memory
+     * @param hash
+     * @return
+     */
+    public Optional<String> get(String hash) {
+        if (!SHA_256.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        String query = cache.getIfPresent(hash);
+        if (query == null && dir != null) {
+            query = read(hash);
+            if (query != null) {
+                cache.put(hash, query);
+            }
+        }
+        return Optional.ofNullable(query);
+    }
+
+    /**
+     * Stores a query, the hash has to be the SHA-256 of the query
+     * @param hash
+     * @param query
+     * @return false if the hash does not match the query
+     */
+    public boolean put(String hash, String query) {
+        if (!hash(query).equals(hash)) {
+            return false;
+        }
+        if (cache.asMap().putIfAbsent(hash, query) == null && dir != null) {
+            write(hash, query);
+        }
+        return true;
+    }
+
+    public static String hash(String query) {
+        return Hashing.sha256().hashString(query, StandardCharsets.UTF_8).toString();
+    }
+
+    private String read(String hash) {
+        Path file = dir.resolve(hash + ".graphql");
+        try {
+            return Files.exists(file) ? Files.readString(file) : null;
+        } catch (IOException e) {
+            log.warn("ERRORS reading persisted query {}", file, e);
+            return null;
+        }
+    }
+
+    private void write(String hash, String query) {
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, hash, ".tmp");
+            Files.writeString(tmp, query);
+            Files.move(tmp, dir.resolve(hash + ".graphql"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("ERRORS writing persisted query {}", hash, e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.ipl.graphql.server;
+
+import com.ipl.graphql.schema.OperationStats;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.GraphqlErrorBuilder;
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLTypeUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Estimates the cost of a query before it runs and rejects it when over the budget.
+ * A root field is one upstream call costing 1 plus its measured mean latency in latency units,
+ * any other field costs field-cost. Costs are multiplied by the assumed size of the enclosing lists.
+ * The estimated and the actual cost, from the latency of the calls made, are reported in the
+ * "cost" extension of the response.
+ */
+@Slf4j
+@Component
+@Order(0)
+public class QueryCostInstrumentation extends SimpleInstrumentation {
+    public static final String EXTENSION = "cost";
+
+    private final OperationStats operationStats = new OperationStats();
+    private final double maxCost;
+    private final int listSize;
+    private final double fieldCost;
+    private final double latencyUnitMillis;
+    private final boolean report;
+
+    public QueryCostInstrumentation(@Value("${graphql.cost.max-cost:1000}") double maxCost,
+                                    @Value("${graphql.cost.list-size:10}") int listSize,
+                                    @Value("${graphql.cost.field-cost:0.01}") double fieldCost,
+                                    @Value("${graphql.cost.latency-unit:100ms}") Duration latencyUnit,
+                                    @Value("${graphql.cost.report:true}") boolean report) {
+        this.maxCost = maxCost;
+        this.listSize = listSize;
+        this.fieldCost = fieldCost;
+        this.latencyUnitMillis = Math.max(1, latencyUnit.toMillis());
+        this.report = report;
+    }
+
+    /**
+     * Latency of the root fields, keyed by field coordinates, e.g. Query.getMakes
+     * @return
+     */
+    public OperationStats operationStats() {
+        return operationStats;
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new CostState();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters) {
+        final CostState state = parameters.getInstrumentationState();
+        state.estimated = estimate(parameters.getExecutionContext());
+        if (maxCost > 0 && state.estimated > maxCost) {
+            log.info("query rejected -- cost {} over budget {}", round(state.estimated), maxCost);
+            final Map<String, Object> extensions = new LinkedHashMap<>();
+            extensions.put("code", "QUERY_COST_EXCEEDED");
+            extensions.put(EXTENSION, report(state));
+            throw new AbortExecutionException(Collections.singletonList(GraphqlErrorBuilder.newError()
+                    .message("Query cost %s exceeds the budget of %s", round(state.estimated), maxCost)
+                    .extensions(extensions)
+                    .build()));
+        }
+        return super.beginExecuteOperation(parameters);
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters) {
+        final CostState state = parameters.getInstrumentationState();
+        final String field = parameters.getExecutionStepInfo().getFieldDefinition().getName();
+        if (state == null || field.startsWith("__")) {
+            return dataFetcher;
+        }
+        if (parameters.getExecutionStepInfo().getPath().getLevel() > 1) {
+            state.actual.add(fieldCost);
+            return dataFetcher;
+        }
+        // root fields are upstream calls, their latency feeds the next estimates
+        final String operation = GraphQLTypeUtil.simplePrint(parameters.getExecutionStepInfo().getParent().getUnwrappedNonNullType())
+                + "." + field;
+        return environment -> {
+            final long start = System.nanoTime();
+            final Object result = dataFetcher.get(environment);
+            if (result instanceof CompletionStage) {
+                ((CompletionStage<?>) result).whenComplete((value, e) -> record(state, operation, start));
+            } else {
+                record(state, operation, start);
+            }
+            return result;
+        };
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult,
+                                                                        InstrumentationExecutionParameters parameters) {
+        final CostState state = parameters.getInstrumentationState();
+        if (!report || state == null) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+        return CompletableFuture.completedFuture(ExecutionResultImpl.newExecutionResult()
+                .from(executionResult)
+                .addExtension(EXTENSION, report(state))
+                .build());
+    }
+
+    /**
+     * Walks the operation, fragments and aliases included, summing the cost of every field
+     * @param executionContext
+     * @return
+     */
+    double estimate(ExecutionContext executionContext) {
+        final DoubleAdder cost = new DoubleAdder();
+        QueryTraverser.newQueryTraverser()
+                .schema(executionContext.getGraphQLSchema())
+                .document(executionContext.getDocument())
+                .operationName(executionContext.getOperationDefinition().getName())
+                .variables(executionContext.getVariables())
+                .build()
+                .visitPreOrder(new QueryVisitorStub() {
+                    @Override
+                    public void visitField(QueryVisitorFieldEnvironment environment) {
+                        cost.add(cost(environment));
+                    }
+                });
+        return cost.sum();
+    }
+
+    private double cost(QueryVisitorFieldEnvironment environment) {
+        double multiplicity = 1;
+        for (QueryVisitorFieldEnvironment parent = environment.getParentEnvironment(); parent != null;
+             parent = parent.getParentEnvironment()) {
+            if (parent.getField().getName().startsWith("__")) {
+                return 0;
+            }
+            if (GraphQLTypeUtil.unwrapNonNull(parent.getFieldDefinition().getType()) instanceof GraphQLList) {
+                multiplicity *= listSize;
+            }
+        }
+        if (environment.getField().getName().startsWith("__")) {
+            return 0;
+        }
+        if (environment.getParentEnvironment() == null) {
+            return callCost(operationStats.meanMillis(environment.getFieldsContainer().getName() + "." + environment.getField().getName()));
+        }
+        return multiplicity * fieldCost;
+    }
+
+    private void record(CostState state, String operation, long start) {
+        final long nanos = System.nanoTime() - start;
+        operationStats.record(operation, nanos);
+        state.actual.add(callCost((double) nanos / TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+
+    private double callCost(double latencyMillis) {
+        return 1 + latencyMillis / latencyUnitMillis;
+    }
+
+    private Map<String, Object> report(CostState state) {
+        final Map<String, Object> cost = new LinkedHashMap<>();
+        cost.put("estimated", round(state.estimated));
+        cost.put("actual", round(state.actual.sum()));
+        cost.put("budget", maxCost);
+        return cost;
+    }
+
+    private static double round(double cost) {
+        return Math.round(cost * 100) / 100.0;
+    }
+
+    private static class CostState implements InstrumentationState {
+        private volatile double estimated;
+        private final DoubleAdder actual = new DoubleAdder();
+    }
+}
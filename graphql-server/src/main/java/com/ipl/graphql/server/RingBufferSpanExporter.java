@@ -0,0 +1,51 @@
+package com.ipl.graphql.server;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the last traces in memory, they are listed at /actuator/traces without any tracing backend
+ */
+@Component
+public class RingBufferSpanExporter implements SpanExporter {
+    private final Trace[] traces;
+    private int next;
+
+    public RingBufferSpanExporter(@Value("${graphql.tracing.buffer-size:100}") int bufferSize) {
+        this.traces = new Trace[Math.max(1, bufferSize)];
+    }
+
+    @Override
+    public synchronized void export(Trace trace) {
+        traces[next] = trace;
+        next = (next + 1) % traces.length;
+    }
+
+    /**
+     * Buffered traces, latest first
+     * @return
+     */
+    public synchronized List<Trace> traces() {
+        final List<Trace> latest = new ArrayList<>(traces.length);
+        for (int i = 1; i <= traces.length; i++) {
+            final Trace trace = traces[(next - i + traces.length) % traces.length];
+            if (trace != null) {
+                latest.add(trace);
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Buffered trace
+     * @param traceId
+     * @return
+     */
+    public Optional<Trace> trace(String traceId) {
+        return traces().stream().filter(trace -> trace.getTraceId().equals(traceId)).findFirst();
+    }
+}
@@ -0,0 +1,178 @@
+package com.ipl.graphql.server;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * On-disk snapshot of the registered services, written when graphql.snapshot.dir is set.
+ * An index lists every service with its location and the SHA-256 of its spec, the raw specs are
+ * stored once per hash. The gateway rebuilds its schema from the snapshot at boot instead of
+ * waiting for every service to register again.
+ */
+@Slf4j
+@Component
+public class SchemaSnapshotStore {
+    private static final String INDEX = "services.json";
+    private static final String SPECS = "specs";
+
+    private final Path dir;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Service> services = new LinkedHashMap<>();
+
+    public SchemaSnapshotStore(@Value("${graphql.snapshot.dir:}") String dir) {
+        this.dir = dir.isBlank() ? null : Paths.get(dir);
+        if (this.dir != null) {
+            readIndex().forEach(service -> services.put(service.getName(), service));
+        }
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    /**
+     * Returns the stored services with their spec, services whose spec is missing or does not match
+     * its hash are skipped
+     * @return
+     */
+    public synchronized List<Service> load() {
+        List<Service> loaded = new ArrayList<>();
+        for (Service service : services.values()) {
+            try {
+                String spec = Files.readString(specFile(service.getHash()));
+                if (hash(spec).equals(service.getHash())) {
+                    loaded.add(new Service(service.getName(), service.getLocation(), service.getHash(), spec));
+                } else {
+                    log.warn("snapshot spec of {} does not match its hash, skipped", service.getName());
+                }
+            } catch (IOException e) {
+                log.warn("ERRORS reading snapshot spec of {}", service.getName(), e);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Stores the spec of a registered service
+     * @param name
+     * @param location
+     * @param spec
+     */
+    public synchronized void save(String name, String location, String spec) {
+        if (dir == null) {
+            return;
+        }
+        String hash = hash(spec);
+        try {
+            Path file = specFile(hash);
+            if (!Files.exists(file)) {
+                write(file, spec);
+            }
+            services.put(name, new Service(name, location, hash, null));
+            writeIndex();
+            // the previous spec of the service is dropped once the index no longer references it
+            deleteOrphanSpecs();
+        } catch (IOException e) {
+            log.warn("ERRORS writing snapshot of {}", name, e);
+        }
+    }
+
+    /**
+     * Removes an unregistered service, its spec is deleted unless another service shares it
+     * @param name
+     */
+    public synchronized void remove(String name) {
+        if (dir == null || services.remove(name) == null) {
+            return;
+        }
+        try {
+            writeIndex();
+            deleteOrphanSpecs();
+        } catch (IOException e) {
+            log.warn("ERRORS removing {} from snapshot", name, e);
+        }
+    }
+
+    public static String hash(String spec) {
+        return Hashing.sha256().hashString(spec, StandardCharsets.UTF_8).toString();
+    }
+
+    private List<Service> readIndex() {
+        Path index = dir.resolve(INDEX);
+        if (!Files.exists(index)) {
+            return Collections.emptyList();
+        }
+        try {
+            return objectMapper.readValue(index.toFile(), new TypeReference<List<Service>>() {});
+        } catch (IOException e) {
+            log.warn("ERRORS reading snapshot index {}", index, e);
+            return Collections.emptyList();
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        write(dir.resolve(INDEX), objectMapper.writerWithDefaultPrettyPrinter()
+                .writeValueAsString(new ArrayList<>(services.values())));
+    }
+
+    private void deleteOrphanSpecs() throws IOException {
+        Set<String> referenced = services.values().stream()
+                .map(service -> service.getHash() + ".spec")
+                .collect(Collectors.toSet());
+        try (Stream<Path> specs = Files.list(dir.resolve(SPECS))) {
+            for (Path spec : specs.collect(Collectors.toList())) {
+                if (!referenced.contains(spec.getFileName().toString())) {
+                    Files.deleteIfExists(spec);
+                }
+            }
+        }
+    }
+
+    private Path specFile(String hash) {
+        return dir.resolve(SPECS).resolve(hash + ".spec");
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        Files.writeString(tmp, content);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Stored service, the spec is only set once loaded
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Service {
+        private String name;
+        private String location;
+        private String hash;
+        @JsonIgnore
+        private String spec;
+    }
+}
@@ -0,0 +1,225 @@
+package com.ipl.graphql.server;
+
+import com.ipl.graphql.schema.UpstreamClients;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background registration pipeline.
+ * Registrations are accepted at once, specs are fetched and parsed in parallel on a bounded pool
+ * with timeouts, then published in a new schema snapshot. A slow service only delays itself.
+ */
+@Slf4j
+@Component
+public class ServiceRegistrations {
+    private final GraphQLProvider graphQLProvider;
+    private final UpstreamClients upstreamClients;
+    private final SchemaSnapshotStore snapshotStore;
+    private final Duration fetchTimeout;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<String, ServiceStatus> statuses = new ConcurrentHashMap<>();
+    private final AtomicLong attempts = new AtomicLong();
+    /** Orders the snapshot saves of registrations with the removals of unregistrations. */
+    private final Object storeLock = new Object();
+
+    public ServiceRegistrations(GraphQLProvider graphQLProvider, UpstreamClients upstreamClients,
+                                SchemaSnapshotStore snapshotStore,
+                                @Value("${graphql.registration.threads:4}") int threads,
+                                @Value("${graphql.registration.queue-size:100}") int queueSize,
+                                @Value("${graphql.registration.fetch-timeout:30s}") Duration fetchTimeout) {
+        this.graphQLProvider = graphQLProvider;
+        this.upstreamClients = upstreamClients;
+        this.snapshotStore = snapshotStore;
+        this.fetchTimeout = fetchTimeout;
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "graphql-registration-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Accepts a registration, the service is active once its status says so
+     * @param name
+     * @param location spec URL or file
+     * @return pending status
+     * @throws java.util.concurrent.RejectedExecutionException when the pipeline is full
+     */
+    public ServiceStatus submit(String name, String location) {
+        final long attempt = attempts.incrementAndGet();
+        final ServiceStatus pending = new ServiceStatus(name, location, ServiceStatus.State.PENDING,
+                null, null, Instant.now(), attempt);
+        final ServiceStatus previous = statuses.put(name, pending);
+        try {
+            executor.execute(() -> register(name, location, attempt, null));
+        } catch (RuntimeException e) {
+            // an active service keeps its status when its new registration is rejected
+            if (previous != null) {
+                statuses.replace(name, pending, previous);
+            } else {
+                statuses.remove(name, pending);
+            }
+            throw e;
+        }
+        return pending;
+    }
+
+    /**
+     * Unregisters a service, a pending registration of the service is discarded
+     * @param name
+     */
+    public void unregister(String name) {
+        synchronized (storeLock) {
+            statuses.remove(name);
+        }
+        graphQLProvider.unregister(name);
+        snapshotStore.remove(name);
+    }
+
+    /**
+     * Rebuilds the schema from the on-disk snapshot, then revalidates every restored service
+     * against its live spec in the background
+     */
+    @PostConstruct
+    public void restore() {
+        if (!snapshotStore.isEnabled()) {
+            return;
+        }
+        final List<SchemaSnapshotStore.Service> services = snapshotStore.load();
+        if (services.isEmpty()) {
+            return;
+        }
+        final Map<String, String> specs = new LinkedHashMap<>();
+        final Map<String, String> locations = new LinkedHashMap<>();
+        services.forEach(service -> {
+            specs.put(service.getName(), service.getSpec());
+            locations.put(service.getName(), service.getLocation());
+        });
+        final long version;
+        try {
+            version = graphQLProvider.registerSpecs(specs, locations);
+        } catch (RuntimeException e) {
+            log.error("ERRORS restoring the schema snapshot, services have to register again", e);
+            return;
+        }
+        log.info("{} services restored from snapshot -- schema version {}", services.size(), version);
+        for (SchemaSnapshotStore.Service service : services) {
+            final long attempt = attempts.incrementAndGet();
+            statuses.put(service.getName(), new ServiceStatus(service.getName(), service.getLocation(),
+                    ServiceStatus.State.ACTIVE, version, null, Instant.now(), attempt));
+            try {
+                executor.execute(() -> register(service.getName(), service.getLocation(), attempt, service.getHash()));
+            } catch (RejectedExecutionException e) {
+                log.warn("revalidation of {} skipped, it is served from the snapshot", service.getName());
+            }
+        }
+    }
+
+    public Collection<ServiceStatus> statuses() {
+        return new ArrayList<>(statuses.values());
+    }
+
+    public Optional<ServiceStatus> status(String name) {
+        return Optional.ofNullable(statuses.get(name));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param knownHash hash of the spec already in the schema, the service is then only reconverted if its spec changed
+     */
+    private void register(String name, String location, long attempt, String knownHash) {
+        try {
+            final String spec = fetch(location);
+            if (!isCurrent(name, attempt)) {
+                // superseded or unregistered while the spec was downloading
+                return;
+            }
+            if (SchemaSnapshotStore.hash(spec).equals(knownHash)) {
+                log.debug("service {} is up to date", name);
+                return;
+            }
+            // superseded or unregistered while the schema was building, checked under the provider's write lock
+            final OptionalLong published = graphQLProvider.registerSpec(name, spec, location,
+                    () -> isCurrent(name, attempt));
+            if (!published.isPresent()) {
+                return;
+            }
+            final long version = published.getAsLong();
+            synchronized (storeLock) {
+                if (!isCurrent(name, attempt)) {
+                    return;
+                }
+                snapshotStore.save(name, location, spec);
+            }
+            update(name, attempt, ServiceStatus.State.ACTIVE, version, null);
+            log.info("service {} registered -- schema version {}", name, version);
+        } catch (Exception e) {
+            log.error("ERRORS registering {} from {}", name, location, e);
+            // a restored service keeps serving its snapshot spec
+            update(name, attempt, knownHash != null ? ServiceStatus.State.ACTIVE : ServiceStatus.State.FAILED,
+                    null, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private String fetch(String location) throws IOException {
+        if (!location.startsWith("http://") && !location.startsWith("https://")) {
+            return new String(Files.readAllBytes(Paths.get(location)), StandardCharsets.UTF_8);
+        }
+        final OkHttpClient client = upstreamClients.sharedClient().newBuilder()
+                .callTimeout(fetchTimeout)
+                .build();
+        try (Response response = client.newCall(new Request.Builder().url(location).get().build()).execute()) {
+            final ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("Spec download failed with HTTP " + response.code());
+            }
+            return body.string();
+        }
+    }
+
+    private boolean isCurrent(String name, long attempt) {
+        return Optional.ofNullable(statuses.get(name)).map(status -> status.isAttempt(attempt)).orElse(false);
+    }
+
+    private void update(String name, long attempt, ServiceStatus.State state, Long version, String error) {
+        statuses.computeIfPresent(name, (key, status) -> status.isAttempt(attempt)
+                ? status.with(state, version != null ? version : status.getSchemaVersion(), error)
+                : status);
+    }
+}
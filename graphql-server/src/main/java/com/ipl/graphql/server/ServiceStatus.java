@@ -0,0 +1,33 @@
+package com.ipl.graphql.server;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Registration state of a service
+ */
+@Value
+public class ServiceStatus {
+    public enum State { PENDING, ACTIVE, FAILED }
+
+    String name;
+    String location;
+    State state;
+    /** Schema version including the service, null until it is active. */
+    Long schemaVersion;
+    /** Failure reason. */
+    String error;
+    Instant updated;
+    /** Registration attempt, a newer attempt supersedes a pending one. */
+    @lombok.Getter(lombok.AccessLevel.NONE)
+    long attempt;
+
+    ServiceStatus with(State state, Long schemaVersion, String error) {
+        return new ServiceStatus(name, location, state, schemaVersion, error, Instant.now(), attempt);
+    }
+
+    boolean isAttempt(long attempt) {
+        return this.attempt == attempt;
+    }
+}
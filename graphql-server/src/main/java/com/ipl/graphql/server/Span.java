@@ -0,0 +1,42 @@
+package com.ipl.graphql.server;
+
+import lombok.Value;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timed step of an execution, times are in microseconds from the start of its trace
+ */
+@Value
+public class Span {
+    public static final String EXECUTION = "execution";
+    public static final String PARSE = "parse";
+    public static final String VALIDATE = "validate";
+    public static final String EXECUTE = "execute";
+    public static final String FIELD = "field";
+    public static final String UPSTREAM = "upstream";
+    public static final String SERIALIZATION = "serialization";
+
+    String kind;
+    String name;
+    long start;
+    long duration;
+    Map<String, Object> attributes;
+
+    /**
+     * Span as a map, as reported in the profile extension
+     * @return
+     */
+    public Map<String, Object> toSpecification() {
+        final Map<String, Object> span = new LinkedHashMap<>();
+        span.put("kind", kind);
+        span.put("name", name);
+        span.put("start", start);
+        span.put("duration", duration);
+        if (!attributes.isEmpty()) {
+            span.put("attributes", attributes);
+        }
+        return span;
+    }
+}
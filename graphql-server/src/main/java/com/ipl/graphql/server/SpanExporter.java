@@ -0,0 +1,13 @@
+package com.ipl.graphql.server;
+
+/**
+ * Receives the traces of the executions, every SpanExporter bean is given each finished trace
+ */
+@FunctionalInterface
+public interface SpanExporter {
+    /**
+     * Exports a finished trace, called on the request thread so it should not block
+     * @param trace
+     */
+    void export(Trace trace);
+}
@@ -0,0 +1,94 @@
+package com.ipl.graphql.server;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spans of one execution, identified by its execution id which is also sent upstream in the TraceId header.
+ * Spans past the limit are counted as dropped, so a large query cannot hold unbounded memory.
+ */
+public class Trace {
+    private final String traceId;
+    private final String operation;
+    private final Instant timestamp = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final int maxSpans;
+    private final ConcurrentLinkedQueue<Span> spans = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private volatile long endNanos;
+
+    public Trace(String traceId, String operation, int maxSpans) {
+        this.traceId = traceId;
+        this.operation = operation;
+        this.maxSpans = maxSpans;
+    }
+
+    /**
+     * Adds a span of the trace
+     * @param kind
+     * @param name
+     * @param startNanos System.nanoTime() at the start of the span
+     * @param endNanos System.nanoTime() at the end of the span
+     * @param attributes
+     */
+    public void add(String kind, String name, long startNanos, long endNanos, Map<String, Object> attributes) {
+        if (size.incrementAndGet() > maxSpans) {
+            size.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        spans.add(new Span(kind, name, micros(startNanos - this.startNanos), micros(endNanos - startNanos), attributes));
+    }
+
+    /**
+     * Marks the end of the trace
+     */
+    void end() {
+        endNanos = System.nanoTime();
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Duration in microseconds, up to now while the trace is not ended
+     * @return
+     */
+    public long getDuration() {
+        return micros((endNanos != 0 ? endNanos : System.nanoTime()) - startNanos);
+    }
+
+    public int getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Spans ordered by start
+     * @return
+     */
+    public List<Span> getSpans() {
+        final List<Span> sorted = new ArrayList<>(spans);
+        sorted.sort((a, b) -> Long.compare(a.getStart(), b.getStart()));
+        return Collections.unmodifiableList(sorted);
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
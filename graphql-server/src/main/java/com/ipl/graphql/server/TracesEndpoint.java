@@ -0,0 +1,43 @@
+package com.ipl.graphql.server;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Actuator endpoint listing the buffered traces at /actuator/traces, the spans of one at /actuator/traces/{traceId}
+ */
+@Component
+@Endpoint(id = "traces")
+public class TracesEndpoint {
+    private final RingBufferSpanExporter exporter;
+
+    public TracesEndpoint(RingBufferSpanExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> traces() {
+        return exporter.traces().stream()
+                .map(trace -> {
+                    final Map<String, Object> summary = new LinkedHashMap<>();
+                    summary.put("traceId", trace.getTraceId());
+                    summary.put("operation", trace.getOperation());
+                    summary.put("timestamp", trace.getTimestamp().toString());
+                    summary.put("duration", trace.getDuration());
+                    return summary;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @ReadOperation
+    public Trace trace(@Selector String traceId) {
+        return exporter.trace(traceId).orElse(null);
+    }
+}
@@ -0,0 +1,221 @@
+package com.ipl.graphql.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.ipl.graphql.schema.UpstreamClients;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.GraphQLContext;
+import graphql.execution.ExecutionId;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.language.Document;
+import graphql.schema.GraphQLTypeUtil;
+import graphql.validation.ValidationError;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Traces sampled executions: parse, validate, execute, every field fetch, every upstream call and the
+ * serialization of the response. Finished traces are given to every {@link SpanExporter}.
+ * A client sending the profile header gets its execution traced and the spans returned in the
+ * "profile" extension of the response.
+ */
+@Slf4j
+@Component
+@Order(2)
+public class TracingInstrumentation extends SimpleInstrumentation {
+    public static final String EXTENSION = "profile";
+    /** Context key of the executions whose spans are returned to the client. */
+    public static final String PROFILE = TracingInstrumentation.class.getName() + ".profile";
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final int maxSpans;
+    private final String profileHeader;
+    private final ObjectProvider<SpanExporter> exporters;
+    private final Cache<String, Trace> active;
+
+    public TracingInstrumentation(@Value("${graphql.tracing.enabled:true}") boolean enabled,
+                                  @Value("${graphql.tracing.sample-rate:0.01}") double sampleRate,
+                                  @Value("${graphql.tracing.max-spans:1000}") int maxSpans,
+                                  @Value("${graphql.tracing.profile-header:X-GraphQL-Profile}") String profileHeader,
+                                  ObjectProvider<SpanExporter> exporters,
+                                  UpstreamClients upstreamClients) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.maxSpans = maxSpans;
+        this.profileHeader = profileHeader;
+        this.exporters = exporters;
+        // traces not finished by the controller are dropped, e.g. when writing the response failed
+        this.active = CacheBuilder.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .build();
+        upstreamClients.metrics().addListener(this::onUpstreamCall);
+    }
+
+    /**
+     * Returns true if the client asked for the profile of its request
+     * @param request
+     * @return
+     */
+    public boolean isProfileRequested(HttpServletRequest request) {
+        return enabled && !profileHeader.isEmpty() && "true".equalsIgnoreCase(request.getHeader(profileHeader));
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        final ExecutionInput executionInput = parameters.getExecutionInput();
+        final boolean profile = executionInput.getContext() instanceof GraphQLContext
+                && Boolean.TRUE.equals(((GraphQLContext) executionInput.getContext()).get(PROFILE));
+        if (!enabled || !profile && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+        final String traceId = executionInput.getExecutionId().toString();
+        final Trace trace = new Trace(traceId, executionInput.getOperationName(), maxSpans);
+        active.put(traceId, trace);
+        return new TraceState(trace, profile);
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecution(InstrumentationExecutionParameters parameters) {
+        return span(parameters.getInstrumentationState(), Span.EXECUTION, Span.EXECUTION, Collections.emptyMap());
+    }
+
+    @Override
+    public InstrumentationContext<Document> beginParse(InstrumentationExecutionParameters parameters) {
+        return span(parameters.getInstrumentationState(), Span.PARSE, Span.PARSE, Collections.emptyMap());
+    }
+
+    @Override
+    public InstrumentationContext<List<ValidationError>> beginValidation(InstrumentationValidationParameters parameters) {
+        return span(parameters.getInstrumentationState(), Span.VALIDATE, Span.VALIDATE, Collections.emptyMap());
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters) {
+        return span(parameters.getInstrumentationState(), Span.EXECUTE, Span.EXECUTE, Collections.emptyMap());
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters) {
+        final TraceState state = parameters.getInstrumentationState();
+        if (state == null) {
+            return super.beginFieldFetch(parameters);
+        }
+        final String field = GraphQLTypeUtil.simplePrint(parameters.getExecutionStepInfo().getParent().getUnwrappedNonNullType())
+                + "." + parameters.getField().getName();
+        return span(state, Span.FIELD, parameters.getExecutionStepInfo().getPath().toString(),
+                Collections.singletonMap("field", field));
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult,
+                                                                        InstrumentationExecutionParameters parameters) {
+        final TraceState state = parameters.getInstrumentationState();
+        if (state == null || !state.profile) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+        return CompletableFuture.completedFuture(ExecutionResultImpl.newExecutionResult()
+                .from(executionResult)
+                .addExtension(EXTENSION, profile(state.trace))
+                .build());
+    }
+
+    /**
+     * Ends the trace of an execution once its response is written and exports it
+     * @param executionId
+     * @param serializationStartNanos System.nanoTime() before writing the response
+     */
+    public void finish(ExecutionId executionId, long serializationStartNanos) {
+        final Trace trace = active.getIfPresent(executionId.toString());
+        if (trace == null) {
+            return;
+        }
+        active.invalidate(executionId.toString());
+        trace.add(Span.SERIALIZATION, Span.SERIALIZATION, serializationStartNanos, System.nanoTime(), Collections.emptyMap());
+        trace.end();
+        exporters.orderedStream().forEach(exporter -> {
+            try {
+                exporter.export(trace);
+            } catch (RuntimeException e) {
+                log.warn("trace export failed -- {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Adds the upstream calls made for a traced execution, they carry its execution id in the TraceId header
+     */
+    private void onUpstreamCall(String service, Request request, Response response, long startNanos, long endNanos) {
+        final String traceId = request.header("TraceId");
+        final Trace trace = traceId != null ? active.getIfPresent(traceId) : null;
+        if (trace == null) {
+            return;
+        }
+        final Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("service", service);
+        attributes.put("status", response != null ? response.code() : "IO_ERROR");
+        trace.add(Span.UPSTREAM, request.method() + " " + request.url().encodedPath(), startNanos, endNanos, attributes);
+    }
+
+    private static <T> InstrumentationContext<T> span(TraceState state, String kind, String name, Map<String, Object> attributes) {
+        if (state == null) {
+            return SimpleInstrumentationContext.noOp();
+        }
+        final long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((value, e) -> state.trace.add(kind, name, start, System.nanoTime(),
+                e == null ? attributes : error(attributes, e)));
+    }
+
+    private static Map<String, Object> error(Map<String, Object> attributes, Throwable e) {
+        final Map<String, Object> withError = new LinkedHashMap<>(attributes);
+        withError.put("error", e.getMessage());
+        return withError;
+    }
+
+    private static Map<String, Object> profile(Trace trace) {
+        final Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("traceId", trace.getTraceId());
+        profile.put("duration", trace.getDuration());
+        profile.put("spans", trace.getSpans().stream().map(Span::toSpecification).collect(Collectors.toList()));
+        if (trace.getDropped() > 0) {
+            profile.put("dropped", trace.getDropped());
+        }
+        return profile;
+    }
+
+    private static class TraceState implements InstrumentationState {
+        private final Trace trace;
+        private final boolean profile;
+
+        TraceState(Trace trace, boolean profile) {
+            this.trace = trace;
+            this.profile = profile;
+        }
+    }
+}
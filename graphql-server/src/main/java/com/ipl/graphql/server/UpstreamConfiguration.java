@@ -0,0 +1,28 @@
+package com.ipl.graphql.server;
+
+import com.ipl.graphql.schema.UpstreamClients;
+import com.ipl.graphql.schema.UpstreamOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UpstreamConfiguration {
+
+    @Bean
+    @ConfigurationProperties(prefix = "graphql.upstream")
+    public UpstreamOptions upstreamOptions() {
+        return new UpstreamOptions();
+    }
+
+    /**
+     * Upstream clients shared by every schema built by {@link GraphQLProvider}
+     * @param upstreamOptions
+     * @return
+     */
+    @Bean(destroyMethod = "shutdown")
+    public UpstreamClients upstreamClients(UpstreamOptions upstreamOptions, MeterRegistry meterRegistry) {
+        return new UpstreamClients(upstreamOptions, meterRegistry);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ipl.graphql.server;
+
+import com.ipl.graphql.schema.CircuitBreaker;
+import com.ipl.graphql.schema.UpstreamClients;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint listing the circuit breaker state and retry budget of the upstream services,
+ * exposed at /actuator/upstreams
+ */
+@Component
+@Endpoint(id = "upstreams")
+public class UpstreamsEndpoint {
+    private final UpstreamClients upstreamClients;
+
+    public UpstreamsEndpoint(UpstreamClients upstreamClients) {
+        this.upstreamClients = upstreamClients;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> upstreams() {
+        final Map<String, Map<String, Object>> upstreams = new TreeMap<>();
+        upstreamClients.resilience().breakers().forEach((service, breaker) -> upstreams.put(service, describe(service, breaker)));
+        return upstreams;
+    }
+
+    private Map<String, Object> describe(String service, CircuitBreaker breaker) {
+        final Map<String, Object> upstream = new LinkedHashMap<>();
+        upstream.put("state", breaker.getState());
+        upstream.put("failureRate", breaker.getFailureRate());
+        upstream.put("calls", breaker.getCalls());
+        upstream.put("retryBalance", upstreamClients.resilience().retryBalance(service));
+        return upstream;
+    }
+}
@@ -0,0 +1,112 @@
+package com.ipl.graphql.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTest {
+
+    @Test
+    void limit_has_to_follow_the_latency() {
+        // given
+        final AdmissionControl admissionControl = admissionControl(0);
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            assertEquals(AdmissionControl.Decision.ACCEPTED, admissionControl.tryAcquire("client"));
+        }
+        for (int i = 0; i < 4; i++) {
+            admissionControl.release(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        final int grown = admissionControl.getLimit();
+        admissionControl.tryAcquire("client");
+        admissionControl.release(TimeUnit.SECONDS.toNanos(2));
+        final int afterOneSlowRequest = admissionControl.getLimit();
+        for (int i = 0; i < 3; i++) {
+            admissionControl.tryAcquire("client");
+            admissionControl.release(TimeUnit.SECONDS.toNanos(2));
+        }
+
+        // then
+        assertEquals(6, grown);
+        assertEquals(6, afterOneSlowRequest);
+        assertEquals(3, admissionControl.getLimit());
+        assertEquals(0, admissionControl.state().getInFlight());
+    }
+
+    @Test
+    void requests_over_the_quota_or_the_limit_have_to_be_rejected_with_retry_after() throws IOException, ServletException {
+        // given
+        final AdmissionControl quotas = admissionControl(1);
+        final AdmissionControl limited = admissionControl(0);
+        for (int i = 0; i < 4; i++) {
+            limited.tryAcquire("other");
+        }
+        final MockHttpServletResponse accepted = new MockHttpServletResponse();
+        final MockHttpServletResponse throttled = new MockHttpServletResponse();
+        final MockHttpServletResponse overloaded = new MockHttpServletResponse();
+
+        // when
+        filter(quotas).doFilter(request(), accepted, new MockFilterChain());
+        filter(quotas).doFilter(request(), throttled, new MockFilterChain());
+        filter(limited).doFilter(request(), overloaded, new MockFilterChain());
+
+        // then
+        assertEquals(200, accepted.getStatus());
+        assertEquals(429, throttled.getStatus());
+        assertEquals("1", throttled.getHeader("Retry-After"));
+        assertEquals(503, overloaded.getStatus());
+        assertTrue(overloaded.getContentAsString().contains("OVERLOADED"));
+    }
+
+    @Test
+    void client_headers_have_to_be_trusted_only_from_trusted_proxies() throws IOException, ServletException {
+        // given
+        final AdmissionControl quotas = admissionControl(1);
+        final MockHttpServletResponse accepted = new MockHttpServletResponse();
+        final MockHttpServletResponse rotated = new MockHttpServletResponse();
+        final MockHttpServletResponse proxied = new MockHttpServletResponse();
+
+        // when
+        filter(quotas).doFilter(request("first", "192.168.0.2"), accepted, new MockFilterChain());
+        filter(quotas).doFilter(request("second", "192.168.0.2"), rotated, new MockFilterChain());
+        filter(quotas).doFilter(request("client", "10.0.0.1"), proxied, new MockFilterChain());
+
+        // then
+        assertEquals(200, accepted.getStatus());
+        assertEquals(429, rotated.getStatus());
+        assertEquals(200, proxied.getStatus());
+    }
+
+    private static AdmissionFilter filter(AdmissionControl admissionControl) {
+        return new AdmissionFilter(admissionControl, new GraphQLResponseWriter(new ObjectMapper(), 64), "X-Client-Id",
+                "10.0.0.1");
+    }
+
+    private static MockHttpServletRequest request() {
+        return request("client", "10.0.0.1");
+    }
+
+    private static MockHttpServletRequest request(String client, String remoteAddress) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.setServletPath("/graphql");
+        request.setRemoteAddr(remoteAddress);
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+
+    private static AdmissionControl admissionControl(double clientRate) {
+        return new AdmissionControl(true, 4, 2, 100, Duration.ofSeconds(1), 0.5, 4, clientRate, 1, new SimpleMeterRegistry());
+    }
+}
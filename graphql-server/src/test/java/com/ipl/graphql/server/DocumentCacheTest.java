@@ -0,0 +1,47 @@
+package com.ipl.graphql.server;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentCacheTest {
+
+    @Test
+    void normalize_has_to_ignore_formatting_outside_strings() {
+        assertEquals("query { book(id: \"1  2\") { name } }",
+                DocumentCache.normalize("query {\n  book(id: \"1  2\") {\n    name, # the name\n  }\n}\n"));
+        assertNotEquals(DocumentCache.hash("# comment {x}"), DocumentCache.hash("# comment\n{x}"));
+    }
+
+    @Test
+    void documents_have_to_be_reused_per_schema_version() {
+        // given
+        final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final DocumentCache documentCache = new DocumentCache(10, meterRegistry);
+        final GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+                new SchemaParser().parse("type Query { hello: String }"),
+                RuntimeWiring.newRuntimeWiring().type("Query", type -> type.dataFetcher("hello", env -> "world")).build());
+        final GraphQL v1 = GraphQL.newGraphQL(schema).preparsedDocumentProvider(documentCache.forVersion(1)).build();
+        final GraphQL v2 = GraphQL.newGraphQL(schema).preparsedDocumentProvider(documentCache.forVersion(2)).build();
+
+        // when
+        v1.execute("{ hello }");
+        final ExecutionResult result = v1.execute("{\n  hello\n}");
+        v2.execute("{ hello }");
+
+        // then
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "graphql.documents").tag("result", "hit").functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "graphql.documents").tag("result", "miss").functionCounter().count());
+    }
+}
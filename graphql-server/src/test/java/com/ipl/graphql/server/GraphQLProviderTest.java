@@ -0,0 +1,193 @@
+package com.ipl.graphql.server;
+
+import com.ipl.graphql.schema.UpstreamClients;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.schema.GraphQLSchema;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphQLProviderTest {
+    // specs of the graphql-schema tests, tests run from the module directory
+    private static final String LISTING_LOCATION = "../graphql-schema/src/test/resources/listing-openapi.json";
+    private static final String USERS_LOCATION = "../graphql-schema/src/test/resources/users-openapi.json";
+    private static final String QUERY = "{ __type(name: \"Query\") { fields { name } } }";
+
+    private UpstreamClients upstreamClients;
+    private GraphQLProvider graphQLProvider;
+
+    @BeforeEach
+    void setUp() {
+        upstreamClients = new UpstreamClients();
+        graphQLProvider = new GraphQLProvider(new MockEnvironment().withProperty("schema", "openapi"), upstreamClients,
+                new DefaultListableBeanFactory().getBeanProvider(ExecutorService.class),
+                new DocumentCache(100, new SimpleMeterRegistry()), 0,
+                new DefaultListableBeanFactory().getBeanProvider(Instrumentation.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstreamClients.shutdown();
+    }
+
+    @Test
+    void execute_has_to_fail_gracefully_when_no_service_is_registered() {
+        // when
+        final ExecutionResult result = graphQLProvider.execute(ExecutionInput.newExecutionInput().query(QUERY));
+
+        // then
+        assertTrue(graphQLProvider.snapshot().isEmpty());
+        assertEquals("No service is registered", result.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void readers_have_to_see_complete_snapshots_under_registration_churn() throws Exception {
+        // given
+        graphQLProvider.register("ListingService", LISTING_LOCATION);
+        final ExecutorService threads = Executors.newFixedThreadPool(8);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicInteger reads = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final List<Future<?>> readers = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 6; i++) {
+            readers.add(threads.submit(() -> {
+                started.await();
+                long version = 0;
+                while (running.get()) {
+                    final GraphQLSnapshot snapshot = graphQLProvider.snapshot();
+                    assertNotNull(snapshot.getGraphQL());
+                    assertTrue(snapshot.getVersion() >= version);
+                    version = snapshot.getVersion();
+                    final GraphQLSchema schema = snapshot.getSchema();
+                    assertNotNull(schema.getQueryType().getFieldDefinition("getMakes"));
+                    assertEquals(snapshot.getServices().contains("UserService"),
+                            schema.getQueryType().getFieldDefinition("getUserById") != null);
+                    assertTrue(graphQLProvider.execute(ExecutionInput.newExecutionInput().query(QUERY)).getErrors().isEmpty());
+                    reads.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        final Future<?> writer = threads.submit(() -> {
+            started.await();
+            for (int i = 0; i < 50; i++) {
+                graphQLProvider.register("UserService", USERS_LOCATION);
+                graphQLProvider.unregister("UserService");
+            }
+            return null;
+        });
+        started.countDown();
+        writer.get(60, TimeUnit.SECONDS);
+        running.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(10, TimeUnit.SECONDS);
+        }
+        threads.shutdown();
+
+        // then
+        assertTrue(reads.get() > 0);
+        assertEquals(101, graphQLProvider.snapshot().getVersion());
+        assertFalse(graphQLProvider.services().contains("UserService"));
+    }
+
+    @Test
+    void responses_have_to_be_stream_decoded_without_buffering_the_body() throws Exception {
+        // given
+        final MockWebServer server = new MockWebServer();
+        final StringBuilder padding = new StringBuilder();
+        for (int i = 0; i < 64 * 1024; i++) {
+            padding.append(' ');
+        }
+        // the selected properties come first, reading the whole body takes about 3s
+        server.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                .setBody("[{\"id\": \"1\", \"name\": \"Ada\"}]" + padding)
+                .throttleBody(1024, 50, TimeUnit.MILLISECONDS));
+        server.start();
+        final String spec = new String(Files.readAllBytes(Paths.get(USERS_LOCATION)), StandardCharsets.UTF_8)
+                .replace("http://127.0.0.1:8082", server.url("").toString().replaceAll("/$", ""));
+        graphQLProvider.registerSpec("UserService", spec);
+
+        // when
+        final long start = System.nanoTime();
+        final ExecutionResult result = graphQLProvider.execute(ExecutionInput.newExecutionInput()
+                .query("{ getUsers { name } }"));
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // then
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        assertEquals(Collections.singletonMap("getUsers", Collections.singletonList(Collections.singletonMap("name", "Ada"))),
+                result.getData());
+        assertTrue(elapsed < 1500, "decoding waited " + elapsed + "ms for the whole body");
+        server.shutdown();
+    }
+
+    @Test
+    void batching_has_to_work_with_blocking_fetchers_on_the_executor() throws Exception {
+        // given
+        final MockWebServer server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setHeader("Content-Type", "application/json")
+                        .setBody("[{\"id\": \"1\", \"name\": \"Ada\"}, {\"id\": \"2\", \"name\": \"Alan\"}]");
+            }
+        });
+        server.start();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton(GraphQLProvider.EXECUTOR, executor);
+        final GraphQLProvider withExecutor = new GraphQLProvider(new MockEnvironment().withProperty("schema", "openapi"),
+                upstreamClients, beanFactory.getBeanProvider(ExecutorService.class),
+                new DocumentCache(100, new SimpleMeterRegistry()), 0,
+                new DefaultListableBeanFactory().getBeanProvider(Instrumentation.class));
+        final String spec = new String(Files.readAllBytes(Paths.get(USERS_LOCATION)), StandardCharsets.UTF_8)
+                .replace("http://127.0.0.1:8082", server.url("").toString().replaceAll("/$", ""));
+        withExecutor.registerSpec("UserService", spec);
+
+        // when
+        final ExecutionResult result = withExecutor.execute(ExecutionInput.newExecutionInput()
+                .query("{ getUsers { name } ada: getUserById(id: \"1\") { name } alan: getUserById(id: \"2\") { name } }"));
+
+        // then
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        final Map<String, Object> data = result.getData();
+        assertEquals(2, ((List<?>) data.get("getUsers")).size());
+        assertEquals(Collections.singletonMap("name", "Ada"), data.get("ada"));
+        assertEquals(Collections.singletonMap("name", "Alan"), data.get("alan"));
+        // getUsers on the executor, both getUserById in one bulk call
+        assertEquals(2, server.getRequestCount());
+        executor.shutdown();
+        server.shutdown();
+    }
+}
@@ -0,0 +1,74 @@
+package com.ipl.graphql.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.GraphqlErrorBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphQLResponseWriterTest {
+    private final GraphQLResponseWriter writer = new GraphQLResponseWriter(new ObjectMapper(), 64);
+
+    @Test
+    void results_have_to_be_written_in_the_specification_format() throws IOException {
+        // given
+        final Map<String, Object> make = new LinkedHashMap<>();
+        make.put("name", "bmw");
+        make.put("models", Arrays.asList("x5", null));
+        final ExecutionResult result = ExecutionResultImpl.newExecutionResult()
+                .data(Collections.singletonMap("getMakes", Collections.singletonList(make)))
+                .addError(GraphqlErrorBuilder.newError().message("failed").build())
+                .addExtension("cost", 3)
+                .build();
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        writer.write(result, new MockHttpServletRequest(), response);
+
+        // then
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals("{\"errors\":[{\"message\":\"failed\",\"locations\":[],\"extensions\":{\"classification\":\"DataFetchingException\"}}],"
+                + "\"data\":{\"getMakes\":[{\"name\":\"bmw\",\"models\":[\"x5\",null]}]},\"extensions\":{\"cost\":3}}",
+                response.getContentAsString());
+    }
+
+    @Test
+    void results_have_to_be_gzipped_when_accepted() throws IOException {
+        // given
+        final ExecutionResult result = ExecutionResultImpl.newExecutionResult()
+                .data(Collections.singletonMap("hello", "world"))
+                .build();
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "deflate, gzip;q=0.8");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        writer.write(result, request, response);
+
+        // then
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals("{\"data\":{\"hello\":\"world\"}}", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        final MockHttpServletRequest refused = new MockHttpServletRequest();
+        refused.addHeader("Accept-Encoding", "gzip;q=0");
+        assertFalse(GraphQLResponseWriter.acceptsGzip(refused.getHeaders("Accept-Encoding")));
+        assertTrue(GraphQLResponseWriter.acceptsGzip(request.getHeaders("Accept-Encoding")));
+    }
+}
@@ -0,0 +1,71 @@
+package com.ipl.graphql.server;
+
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MetricsInstrumentationTest {
+    private static final String SDL = "type Query { makes: [Make] }"
+            + " type Make { id: ID name: String }";
+
+    @Test
+    void requests_phases_and_fields_have_to_be_timed() {
+        // given
+        final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final GraphQL graphQL = graphQL(new MetricsInstrumentation(true, 100, 500, meterRegistry));
+
+        // when
+        graphQL.execute(ExecutionInput.newExecutionInput("query makes { makes { id name } }").operationName("makes"));
+
+        // then
+        assertEquals(1, meterRegistry.get("graphql.request").tag("operation", "makes").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("graphql.request.phase").tag("phase", "parse").timer().count());
+        assertEquals(1, meterRegistry.get("graphql.request.phase").tag("phase", "validate").timer().count());
+        assertEquals(1, meterRegistry.get("graphql.request.phase").tag("phase", "execute").timer().count());
+        assertEquals(1, meterRegistry.get("graphql.field").tag("field", "Query.makes").timer().count());
+        // property fields are not timed
+        assertNull(meterRegistry.find("graphql.field").tag("field", "Make.name").timer());
+        assertEquals(0, meterRegistry.get("graphql.requests.in-flight").gauge().value());
+    }
+
+    @Test
+    void operation_names_past_the_limit_have_to_be_tagged_other() {
+        // given
+        final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final GraphQL graphQL = graphQL(new MetricsInstrumentation(true, 2, 500, meterRegistry));
+
+        // when
+        for (String name : new String[]{"a", "b", "c", "d"}) {
+            graphQL.execute(ExecutionInput.newExecutionInput("query " + name + " { makes { id } }").operationName(name));
+        }
+        graphQL.execute("{ makes { id } }");
+
+        // then
+        assertNotNull(meterRegistry.find("graphql.request").tag("operation", "a").timer());
+        assertNotNull(meterRegistry.find("graphql.request").tag("operation", "b").timer());
+        assertNull(meterRegistry.find("graphql.request").tag("operation", "c").timer());
+        assertEquals(3, meterRegistry.get("graphql.request").tag("operation", MetricsInstrumentation.OTHER).timer().count());
+    }
+
+    private static GraphQL graphQL(MetricsInstrumentation metrics) {
+        final GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL),
+                RuntimeWiring.newRuntimeWiring().type("Query", type -> type.dataFetcher("makes",
+                        env -> Collections.singletonList(Map.of("id", 1, "name", "bmw")))).build());
+        return GraphQL.newGraphQL(schema)
+                .instrumentation(metrics)
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.ipl.graphql.server;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistedQueryStoreTest {
+    private static final String QUERY = "{ getMakes { id name } }";
+
+    @Test
+    void store_has_to_reject_hash_not_matching_query() {
+        // given
+        final PersistedQueryStore store = new PersistedQueryStore(10, "", new SimpleMeterRegistry());
+
+        // then
+        assertFalse(store.put(PersistedQueryStore.hash("{ other }"), QUERY));
+        assertEquals(Optional.empty(), store.get(PersistedQueryStore.hash(QUERY)));
+    }
+
+    @Test
+    void stored_queries_have_to_survive_restarts(@TempDir Path dir) {
+        // given
+        final String hash = PersistedQueryStore.hash(QUERY);
+        assertTrue(new PersistedQueryStore(10, dir.toString(), new SimpleMeterRegistry()).put(hash, QUERY));
+
+        // when
+        final PersistedQueryStore restarted = new PersistedQueryStore(10, dir.toString(), new SimpleMeterRegistry());
+
+        // then
+        assertEquals(Optional.of(QUERY), restarted.get(hash));
+        assertEquals(Optional.empty(), restarted.get("../" + hash));
+    }
+}
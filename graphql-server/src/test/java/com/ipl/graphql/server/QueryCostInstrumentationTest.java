@@ -0,0 +1,72 @@
+package com.ipl.graphql.server;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryCostInstrumentationTest {
+    private static final String SDL = "type Query { makes: [Make] }"
+            + " type Make { id: ID name: String models: [Model] }"
+            + " type Model { id: ID name: String }";
+
+    @Test
+    void cost_has_to_be_estimated_and_reported() {
+        // given
+        final QueryCostInstrumentation cost = new QueryCostInstrumentation(100, 10, 0.01, Duration.ofMillis(100), true);
+        final GraphQL graphQL = graphQL(cost);
+
+        // when
+        final ExecutionResult result = graphQL.execute("{ makes { id name } other: makes { models { name } } }");
+
+        // then
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        // 2 calls, 3 fields under one list and 1 field under two lists
+        final Map<String, Object> report = report(result);
+        assertEquals(3.3, report.get("estimated"));
+        assertTrue((double) report.get("actual") >= 2);
+        assertEquals(2, cost.operationStats().count("Query.makes"));
+    }
+
+    @Test
+    void queries_over_budget_have_to_be_rejected() {
+        // given
+        final GraphQL graphQL = graphQL(new QueryCostInstrumentation(3, 10, 0.01, Duration.ofMillis(100), true));
+
+        // when
+        final ExecutionResult result = graphQL.execute("{ a: makes { id } b: makes { id } c: makes { id } }");
+
+        // then
+        assertNull(result.getData());
+        assertEquals("QUERY_COST_EXCEEDED", result.getErrors().get(0).getExtensions().get("code"));
+    }
+
+    private static GraphQL graphQL(QueryCostInstrumentation cost) {
+        final GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL),
+                RuntimeWiring.newRuntimeWiring().type("Query", type -> type.dataFetcher("makes",
+                        env -> Collections.singletonList(Map.of("id", 1, "name", "bmw",
+                                "models", Arrays.asList(Map.of("id", 1, "name", "x5")))))).build());
+        return GraphQL.newGraphQL(schema)
+                .instrumentation(new ChainedInstrumentation(Arrays.asList(cost, new DataLoaderDispatcherInstrumentation())))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> report(ExecutionResult result) {
+        return (Map<String, Object>) result.getExtensions().get(QueryCostInstrumentation.EXTENSION);
+    }
+}
@@ -0,0 +1,197 @@
+package com.ipl.graphql.server;
+
+import com.ipl.graphql.schema.UpstreamClients;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.schema.GraphQLObjectType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceRegistrationsTest {
+    private static final String USERS_LOCATION = "../graphql-schema/src/test/resources/users-openapi.json";
+
+    private MockWebServer server;
+    private UpstreamClients upstreamClients;
+    private GraphQLProvider graphQLProvider;
+    private ServiceRegistrations serviceRegistrations;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        final String spec = new String(Files.readAllBytes(Paths.get(USERS_LOCATION)), StandardCharsets.UTF_8);
+        // same spec with its schemas in a sibling document
+        final String splitSpec = spec.substring(0, spec.indexOf(",\n  \"components\"")).concat("\n}")
+                .replace("#/components/schemas/UserDto", "schemas.json#/UserDto");
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                switch (request.getPath()) {
+                    case "/fast/v3/api-docs":
+                        return new MockResponse().setBody(spec);
+                    case "/split/v3/api-docs":
+                        return new MockResponse().setBody(splitSpec);
+                    case "/split/v3/schemas.json":
+                        return new MockResponse().setBody("{\"UserDto\": {\"type\": \"object\", "
+                                + "\"properties\": {\"id\": {\"type\": \"string\"}, \"email\": {\"type\": \"string\"}}}}");
+                    case "/slow/v3/api-docs":
+                        return new MockResponse().setBody(spec).setHeadersDelay(2, TimeUnit.SECONDS);
+                    default:
+                        return new MockResponse().setResponseCode(500);
+                }
+            }
+        });
+        server.start();
+        upstreamClients = new UpstreamClients();
+        graphQLProvider = newGraphQLProvider();
+        serviceRegistrations = new ServiceRegistrations(graphQLProvider, upstreamClients, new SchemaSnapshotStore(""),
+                4, 10, Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        serviceRegistrations.shutdown();
+        upstreamClients.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    void slow_and_failing_services_have_not_to_delay_other_registrations() throws InterruptedException {
+        // when
+        final ServiceStatus pending = serviceRegistrations.submit("SlowService", server.url("/slow/v3/api-docs").toString());
+        serviceRegistrations.submit("BrokenService", server.url("/broken/v3/api-docs").toString());
+        serviceRegistrations.submit("FastService", server.url("/fast/v3/api-docs").toString());
+
+        // then
+        assertEquals(ServiceStatus.State.PENDING, pending.getState());
+        final ServiceStatus fast = await("FastService", ServiceStatus.State.ACTIVE);
+        assertNotNull(fast.getSchemaVersion());
+        assertTrue(graphQLProvider.services().contains("FastService"));
+        await("BrokenService", ServiceStatus.State.FAILED);
+        final ServiceStatus slow = await("SlowService", ServiceStatus.State.FAILED);
+        assertTrue(slow.getError().contains("timeout"));
+        assertEquals(1, graphQLProvider.services().size());
+    }
+
+    @Test
+    void services_have_to_be_restored_from_the_snapshot_then_revalidated(@TempDir Path dir) throws InterruptedException {
+        // given
+        final ServiceRegistrations before = new ServiceRegistrations(newGraphQLProvider(), upstreamClients,
+                new SchemaSnapshotStore(dir.toString()), 4, 10, Duration.ofSeconds(1));
+        before.submit("FastService", server.url("/fast/v3/api-docs").toString());
+        await(before, "FastService", ServiceStatus.State.ACTIVE);
+        before.shutdown();
+
+        // when
+        final GraphQLProvider restarted = newGraphQLProvider();
+        final ServiceRegistrations after = new ServiceRegistrations(restarted, upstreamClients,
+                new SchemaSnapshotStore(dir.toString()), 4, 10, Duration.ofSeconds(1));
+        after.restore();
+
+        // then
+        assertTrue(restarted.services().contains("FastService"));
+        assertEquals(1L, after.status("FastService").orElseThrow().getSchemaVersion());
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        assertEquals(1L, restarted.snapshot().getVersion());
+        after.shutdown();
+    }
+
+    @Test
+    void relative_refs_have_to_be_resolved_against_the_spec_location() throws InterruptedException {
+        // when
+        serviceRegistrations.submit("SplitService", server.url("/split/v3/api-docs").toString());
+
+        // then
+        await("SplitService", ServiceStatus.State.ACTIVE);
+        final GraphQLObjectType user = (GraphQLObjectType) graphQLProvider.snapshot().getSchema().getType("UserDto");
+        assertNotNull(user);
+        assertNotNull(user.getFieldDefinition("email"));
+    }
+
+    @Test
+    void replaced_specs_have_to_be_deleted_from_the_snapshot(@TempDir Path dir) throws IOException {
+        // given
+        final SchemaSnapshotStore snapshotStore = new SchemaSnapshotStore(dir.toString());
+        snapshotStore.save("FastService", "fast", "{\"openapi\": \"3.0.1\"}");
+
+        // when
+        snapshotStore.save("FastService", "fast", "{\"openapi\": \"3.0.3\"}");
+
+        // then
+        try (Stream<Path> specs = Files.list(dir.resolve("specs"))) {
+            assertEquals(1, specs.count());
+        }
+        assertEquals("{\"openapi\": \"3.0.3\"}", snapshotStore.load().get(0).getSpec());
+    }
+
+    @Test
+    void rejected_registrations_have_not_to_drop_the_status_of_active_services() throws InterruptedException {
+        // given
+        final ServiceRegistrations single = new ServiceRegistrations(graphQLProvider, upstreamClients,
+                new SchemaSnapshotStore(""), 1, 1, Duration.ofSeconds(1));
+        single.submit("FastService", server.url("/fast/v3/api-docs").toString());
+        final ServiceStatus active = await(single, "FastService", ServiceStatus.State.ACTIVE);
+        single.submit("SlowService", server.url("/slow/v3/api-docs").toString());
+        // the only thread is downloading the slow spec, the next registration fills the queue
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        single.submit("OtherSlowService", server.url("/slow/v3/api-docs").toString());
+
+        // when
+        assertThrows(RejectedExecutionException.class,
+                () -> single.submit("FastService", server.url("/fast/v3/api-docs").toString()));
+
+        // then
+        assertEquals(active, single.status("FastService").orElseThrow());
+        await(single, "SlowService", ServiceStatus.State.FAILED);
+        await(single, "OtherSlowService", ServiceStatus.State.FAILED);
+        single.shutdown();
+    }
+
+    private GraphQLProvider newGraphQLProvider() {
+        return new GraphQLProvider(new MockEnvironment().withProperty("schema", "openapi"), upstreamClients,
+                new DefaultListableBeanFactory().getBeanProvider(ExecutorService.class),
+                new DocumentCache(100, new SimpleMeterRegistry()), 0,
+                new DefaultListableBeanFactory().getBeanProvider(Instrumentation.class));
+    }
+
+    private ServiceStatus await(String name, ServiceStatus.State state) throws InterruptedException {
+        return await(serviceRegistrations, name, state);
+    }
+
+    private static ServiceStatus await(ServiceRegistrations serviceRegistrations, String name, ServiceStatus.State state)
+            throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ServiceStatus status = serviceRegistrations.status(name).orElseThrow();
+            if (status.getState() == state) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError(name + " is not " + state);
+    }
+}
@@ -0,0 +1,107 @@
+package com.ipl.graphql.server;
+
+import com.ipl.graphql.schema.UpstreamClients;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.ExecutionId;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import okhttp3.Request;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TracingInstrumentationTest {
+    private static final String SDL = "type Query { makes: [Make] }"
+            + " type Make { id: ID name: String }";
+
+    @Test
+    void profiled_executions_have_to_be_traced_and_exported() {
+        // given
+        final RingBufferSpanExporter exporter = new RingBufferSpanExporter(10);
+        final UpstreamClients upstreamClients = new UpstreamClients();
+        final TracingInstrumentation tracing = tracing(0, exporter, upstreamClients);
+        final ExecutionId executionId = ExecutionId.generate();
+
+        // when
+        final ExecutionResult result = graphQL(tracing, upstreamClients).execute(ExecutionInput.newExecutionInput()
+                .query("{ makes { id name } }")
+                .executionId(executionId)
+                .context(context -> context.of(TracingInstrumentation.PROFILE, true)));
+        tracing.finish(executionId, System.nanoTime());
+
+        // then
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        final List<String> profiled = names(result);
+        assertTrue(profiled.contains(Span.PARSE));
+        assertTrue(profiled.contains("/makes"));
+        assertTrue(profiled.contains("/makes[0]/name"));
+        assertTrue(profiled.contains("GET /makes"));
+        final Trace trace = exporter.trace(executionId.toString()).orElseThrow();
+        assertEquals(profiled.size() + 1, trace.getSpans().size());
+        assertEquals(Span.SERIALIZATION, trace.getSpans().get(trace.getSpans().size() - 1).getKind());
+    }
+
+    @Test
+    void executions_have_to_be_sampled() {
+        // given
+        final RingBufferSpanExporter exporter = new RingBufferSpanExporter(10);
+        final UpstreamClients upstreamClients = new UpstreamClients();
+        final TracingInstrumentation tracing = tracing(0, exporter, upstreamClients);
+        final ExecutionId executionId = ExecutionId.generate();
+
+        // when
+        final ExecutionResult result = graphQL(tracing, upstreamClients).execute(ExecutionInput.newExecutionInput()
+                .query("{ makes { id } }")
+                .executionId(executionId));
+        tracing.finish(executionId, System.nanoTime());
+
+        // then
+        assertNull(result.getExtensions());
+        assertTrue(exporter.traces().isEmpty());
+    }
+
+    private static TracingInstrumentation tracing(double sampleRate, SpanExporter exporter, UpstreamClients upstreamClients) {
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("exporter", exporter);
+        return new TracingInstrumentation(true, sampleRate, 1000, "X-GraphQL-Profile",
+                beanFactory.getBeanProvider(SpanExporter.class), upstreamClients);
+    }
+
+    /**
+     * makes stands for an upstream call, recorded as the fetchers do with the execution id as TraceId
+     */
+    private static GraphQL graphQL(TracingInstrumentation tracing, UpstreamClients upstreamClients) {
+        final GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL),
+                RuntimeWiring.newRuntimeWiring().type("Query", type -> type.dataFetcher("makes", env -> {
+                    final long start = System.nanoTime();
+                    upstreamClients.metrics().record("ListingService", new Request.Builder()
+                            .url("http://localhost/makes")
+                            .header("TraceId", env.getExecutionId().toString())
+                            .build(), null, start);
+                    return Collections.singletonList(Map.of("id", 1, "name", "bmw"));
+                })).build());
+        return GraphQL.newGraphQL(schema)
+                .instrumentation(tracing)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> names(ExecutionResult result) {
+        final Map<String, Object> profile = (Map<String, Object>) result.getExtensions().get(TracingInstrumentation.EXTENSION);
+        return ((List<Map<String, Object>>) profile.get("spans")).stream()
+                .map(span -> (String) span.get("name"))
+                .collect(Collectors.toList());
+    }
+}